@@ -0,0 +1,559 @@
+package me.khairulsyamil.openrewrite;
+
+import me.khairulsyamil.openrewrite.java.JavaMethodSorter;
+import me.khairulsyamil.openrewrite.json.JsonSorter;
+import me.khairulsyamil.openrewrite.properties.PropertiesSorter;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.ParseExceptionResult;
+import org.openrewrite.Parser;
+import org.openrewrite.SourceFile;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.json.JsonParser;
+import org.openrewrite.properties.PropertiesParser;
+import org.openrewrite.tree.ParseError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs the Java, properties and JSON sorters with their default options over a directory tree, outside of a recipe
+ * run, one file per task on a work-stealing pool sized to the machine.
+ * <p>
+ * Files are independent: each task parses its file, sorts it and writes it back when it changed, so the pool
+ * scales with the number of cores. Properties and JSON files found sorted by {@link RawSortednessCheck} are not
+ * parsed at all. A file that fails to parse or sort is reported and left as is, the other files are still sorted.
+ * The {@link Result} lists the files in path order whatever order the tasks finished in.
+ * <p>
+ * {@link #sortPipelined(Path, int)} runs the same steps as parse, sort and write stages connected by bounded queues,
+ * each tree is released once written. The trees alive at any time are bounded by the stage threads and the queue
+ * capacity, not by the number of files.
+ */
+public final class BatchSorter {
+    public static final int DEFAULT_PIPELINE_DEPTH = 16;
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchSorter.class);
+
+    // End of a stage's queue.
+    private static final Work END = new Work(Paths.get(""), Kind.JAVA, -1);
+
+    private final FileGlob propertiesGlob;
+    private final FileGlob jsonGlob;
+    private final RawSortednessCheck sortednessCheck;
+    private final int parallelism;
+
+    @Nullable
+    private final Function<Path, TreeVisitor<?, ExecutionContext>> visitors;
+
+    // Java parsers are costly to build, each worker reuses its own.
+    private final ThreadLocal<JavaParser> javaParser = ThreadLocal.withInitial(() -> JavaParser.fromJavaVersion().build());
+
+    public BatchSorter() {
+        this(null, null, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param propertiesFilePattern the {@code filePattern} of {@link PropertiesSorter}.
+     * @param jsonFilePattern       the {@code filePattern} of {@link JsonSorter}.
+     * @param parallelism           number of worker threads.
+     */
+    public BatchSorter(@Nullable String propertiesFilePattern, @Nullable String jsonFilePattern, int parallelism) {
+        this(propertiesFilePattern, jsonFilePattern, parallelism, null);
+    }
+
+    /**
+     * @param visitors the visitor sorting each file, given its path relative to the root, null uses the sorters.
+     */
+    BatchSorter(@Nullable String propertiesFilePattern,
+                @Nullable String jsonFilePattern,
+                int parallelism,
+                @Nullable Function<Path, TreeVisitor<?, ExecutionContext>> visitors) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+
+        this.propertiesGlob = FileGlob.compile(propertiesFilePattern);
+        this.jsonGlob = FileGlob.compile(jsonFilePattern);
+        this.sortednessCheck = RawSortednessCheck.of(null, null);
+        this.parallelism = parallelism;
+        this.visitors = visitors;
+    }
+
+    /**
+     * Usage: {@code BatchSorter [--pipelined] <root> [properties file pattern] [json file pattern]}, files are sorted
+     * in place. Exits with 1 when a file failed.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean pipelined = args.length > 0 && "--pipelined".equals(args[0]);
+
+        if (pipelined) {
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: " + BatchSorter.class.getName() + " [--pipelined] <root> [properties file pattern] [json file pattern]");
+            System.exit(2);
+        }
+
+        BatchSorter sorter = new BatchSorter(args.length > 1 ? args[1] : null,
+                args.length > 2 ? args[2] : null,
+                Runtime.getRuntime().availableProcessors());
+
+        Result result = pipelined
+                ? sorter.sortPipelined(Paths.get(args[0]), DEFAULT_PIPELINE_DEPTH)
+                : sorter.sort(Paths.get(args[0]));
+
+        for (Path sorted: result.getSorted()) {
+            System.out.println("Sorted: " + sorted);
+        }
+
+        for (Map.Entry<Path, String> failure: result.getFailures().entrySet()) {
+            System.err.println("Failed: " + failure.getKey() + ": " + failure.getValue());
+        }
+
+        System.out.println("Files: " + result.getFileCount()
+                + ", sorted: " + result.getSorted().size()
+                + ", failed: " + result.getFailures().size());
+
+        if (!result.getFailures().isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sorts every matching file under the root in place.
+     */
+    public Result sort(Path root) throws IOException {
+        List<Path> files = discover(root);
+        List<Callable<Outcome>> tasks = new ArrayList<>(files.size());
+
+        for (Path file: files) {
+            tasks.add(() -> sortFile(root, file));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try {
+            // Futures come back in task order, so in path order.
+            List<Future<Outcome>> futures = pool.invokeAll(tasks);
+            Result result = new Result(files.size());
+
+            for (int i = 0; i < futures.size(); i++) {
+                Outcome outcome;
+
+                try {
+                    outcome = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    outcome = Outcome.failed(String.valueOf(e.getCause()));
+                }
+
+                collect(result, files.get(i), outcome);
+            }
+
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sorting " + root, e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * The files to sort under the root, relative to it and in path order. Hidden directories are skipped.
+     */
+    List<Path> discover(Path root) throws IOException {
+        List<Path> files = new ArrayList<>();
+
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                Path name = dir.getFileName();
+
+                if (!dir.equals(root) && name != null && name.toString().startsWith(".")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                Path relative = root.relativize(file);
+
+                if (attrs.isRegularFile() && kindOf(relative) != null) {
+                    files.add(relative);
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        files.sort(null);
+
+        return files;
+    }
+
+    @Nullable
+    private Kind kindOf(Path relative) {
+        String name = String.valueOf(relative.getFileName());
+
+        if (name.endsWith(".java")) {
+            return Kind.JAVA;
+        }
+
+        if (name.endsWith(".properties") && propertiesGlob.matches(relative)) {
+            return Kind.PROPERTIES;
+        }
+
+        if (name.endsWith(".json") && jsonGlob.matches(relative)) {
+            return Kind.JSON;
+        }
+
+        return null;
+    }
+
+    /**
+     * Sorts every matching file under the root in place, through parse, sort and write stages. Parsing runs on
+     * one thread per core, sorting and writing on fewer threads. Each queue between two stages holds at most
+     * {@code depth} trees, a stage waits when the next one falls behind.
+     */
+    public Result sortPipelined(Path root, int depth) throws IOException {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Pipeline depth must be positive: " + depth);
+        }
+
+        List<Path> files = discover(root);
+        Outcome[] outcomes = new Outcome[files.size()];
+
+        int parsers = parallelism;
+        int sorters = Math.max(1, parallelism / 2);
+        int writers = Math.max(1, parallelism / 4);
+
+        BlockingQueue<Work> sortQueue = new ArrayBlockingQueue<>(depth);
+        BlockingQueue<Work> writeQueue = new ArrayBlockingQueue<>(depth);
+        AtomicInteger nextFile = new AtomicInteger();
+        AtomicInteger parsing = new AtomicInteger(parsers);
+        AtomicInteger sorting = new AtomicInteger(sorters);
+
+        List<Callable<Void>> stages = new ArrayList<>(parsers + sorters + writers);
+
+        for (int i = 0; i < parsers; i++) {
+            stages.add(() -> {
+                try {
+                    for (int index = nextFile.getAndIncrement(); index < files.size(); index = nextFile.getAndIncrement()) {
+                        Work work = new Work(files.get(index), kindOf(files.get(index)), index);
+                        Outcome outcome = step(work, () -> parse(root, work));
+
+                        if (outcome == null) {
+                            sortQueue.put(work);
+                        } else {
+                            outcomes[index] = outcome;
+                        }
+                    }
+                } finally {
+                    end(parsing, sortQueue, sorters);
+                }
+
+                return null;
+            });
+        }
+
+        for (int i = 0; i < sorters; i++) {
+            stages.add(() -> {
+                try {
+                    drain(sortQueue, outcomes, w -> {
+                        Outcome outcome = step(w, () -> sort(w));
+
+                        if (outcome == null) {
+                            writeQueue.put(w);
+                        } else {
+                            outcomes[w.index] = outcome;
+                        }
+                    });
+                } finally {
+                    end(sorting, writeQueue, writers);
+                }
+
+                return null;
+            });
+        }
+
+        for (int i = 0; i < writers; i++) {
+            stages.add(() -> {
+                drain(writeQueue, outcomes, w -> outcomes[w.index] = step(w, () -> write(root, w)));
+
+                return null;
+            });
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(stages.size());
+
+        try {
+            for (Future<Void> stage: pool.invokeAll(stages)) {
+                try {
+                    stage.get();
+                } catch (ExecutionException e) {
+                    throw new IOException("Pipeline stage failed", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sorting " + root, e);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Result result = new Result(files.size());
+
+        for (int i = 0; i < outcomes.length; i++) {
+            collect(result, files.get(i), outcomes[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Runs a stage over its queue until the end of the queue. Once a failure escapes a step, the stage keeps taking
+     * its queue and fails the remaining files, so the stage before it never waits on a full queue. The failure is
+     * thrown at the end of the queue.
+     */
+    private static void drain(BlockingQueue<Work> queue, Outcome[] outcomes, Stage stage) throws Exception {
+        Throwable failure = null;
+
+        for (Work work = queue.take(); work != END; work = queue.take()) {
+            if (failure == null) {
+                try {
+                    stage.run(work);
+                    continue;
+                } catch (Throwable t) {
+                    logger.error("Pipeline stage failed\nFile: {}", work.relative, t);
+                    failure = t;
+                }
+            }
+
+            outcomes[work.index] = Outcome.failed(String.valueOf(failure));
+            work.release();
+        }
+
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+
+        if (failure != null) {
+            throw (Exception) failure;
+        }
+    }
+
+    /**
+     * The last thread of a stage to finish ends the queue of the next stage, once per thread of that stage.
+     */
+    private static void end(AtomicInteger running, BlockingQueue<Work> next, int consumers) throws InterruptedException {
+        if (running.decrementAndGet() == 0) {
+            for (int i = 0; i < consumers; i++) {
+                next.put(END);
+            }
+        }
+    }
+
+    private static void collect(Result result, Path file, @Nullable Outcome outcome) {
+        if (outcome == null) {
+            // A stage was interrupted before reaching the file.
+            result.failures.put(file, "Not sorted");
+        } else if (outcome.failure != null) {
+            result.failures.put(file, outcome.failure);
+        } else if (outcome.sorted) {
+            result.sorted.add(file);
+        }
+    }
+
+    private Outcome sortFile(Path root, Path relative) {
+        Work work = new Work(relative, kindOf(relative), 0);
+
+        Outcome outcome = step(work, () -> parse(root, work));
+
+        if (outcome == null) {
+            outcome = step(work, () -> sort(work));
+        }
+
+        if (outcome == null) {
+            outcome = step(work, () -> write(root, work));
+        }
+
+        return outcome;
+    }
+
+    /**
+     * Runs one step of a file, a failure ends the file without stopping the others. Errors a single file can cause,
+     * such as a stack overflow on a deeply nested tree or a class failing to link, are failures of that file.
+     *
+     * @return the final outcome of the file, null when the next step should run.
+     */
+    @Nullable
+    private static Outcome step(Work work, Callable<Outcome> step) {
+        try {
+            Outcome outcome = step.call();
+
+            if (outcome == null && !work.errors.isEmpty()) {
+                outcome = Outcome.failed(String.valueOf(work.errors.get(0)));
+            }
+
+            if (outcome != null) {
+                work.release();
+            }
+
+            return outcome;
+        } catch (Exception | StackOverflowError | LinkageError e) {
+            logger.warn("File not sorted\nFile: {}", work.relative, e);
+            work.release();
+
+            return Outcome.failed(String.valueOf(e));
+        }
+    }
+
+    @Nullable
+    private Outcome parse(Path root, Work work) throws IOException {
+        Path file = root.resolve(work.relative);
+
+        if (work.kind != Kind.JAVA && sortednessCheck.isSorted(file)) {
+            return Outcome.UNCHANGED;
+        }
+
+        Parser parser = work.kind == Kind.JAVA ? javaParser.get() : work.kind == Kind.PROPERTIES
+                ? PropertiesParser.builder().build()
+                : JsonParser.builder().build();
+
+        try {
+            work.tree = parser.parse(Collections.singletonList(file), root, work.ctx).findFirst().orElse(null);
+        } finally {
+            parser.reset();
+        }
+
+        if (work.tree == null) {
+            return Outcome.failed("Not parsed");
+        }
+
+        if (work.tree instanceof ParseError) {
+            return Outcome.failed(work.tree.getMarkers().findFirst(ParseExceptionResult.class)
+                    .map(ParseExceptionResult::getMessage)
+                    .orElse("Parse error"));
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private Outcome sort(Work work) {
+        SourceFile before = work.tree;
+        TreeVisitor<?, ExecutionContext> visitor = visitors == null ? visitorOf(work.kind) : visitors.apply(work.relative);
+        work.tree = (SourceFile) visitor.visitNonNull(before, work.ctx);
+
+        return work.tree == before ? Outcome.UNCHANGED : null;
+    }
+
+    private static Outcome write(Path root, Work work) throws IOException {
+        SourceFile after = work.tree;
+        Charset charset = after.getCharset() == null ? StandardCharsets.UTF_8 : after.getCharset();
+
+        Files.write(root.resolve(work.relative), after.printAll().getBytes(charset));
+
+        return Outcome.SORTED;
+    }
+
+    private static TreeVisitor<?, ExecutionContext> visitorOf(Kind kind) {
+        return switch (kind) {
+            case JAVA -> new JavaMethodSorter.JavaMethodSorterVisitor();
+            case PROPERTIES -> new PropertiesSorter.PropertiesSorterVisitor();
+            case JSON -> new JsonSorter.JsonSorterVisitor();
+        };
+    }
+
+    private interface Stage {
+        void run(Work work) throws Exception;
+    }
+
+    /**
+     * A file on its way through the steps, holding its tree until it is written or dropped.
+     */
+    private static final class Work {
+        final Path relative;
+        final Kind kind;
+        final int index;
+        final List<Throwable> errors = new ArrayList<>();
+        final ExecutionContext ctx = new InMemoryExecutionContext(errors::add);
+
+        @Nullable
+        SourceFile tree;
+
+        Work(Path relative, Kind kind, int index) {
+            this.relative = relative;
+            this.kind = kind;
+            this.index = index;
+        }
+
+        void release() {
+            tree = null;
+        }
+    }
+
+    private enum Kind {
+        JAVA,
+        PROPERTIES,
+        JSON
+    }
+
+    private static final class Outcome {
+        static final Outcome UNCHANGED = new Outcome(false, null);
+        static final Outcome SORTED = new Outcome(true, null);
+
+        final boolean sorted;
+
+        @Nullable
+        final String failure;
+
+        private Outcome(boolean sorted, @Nullable String failure) {
+            this.sorted = sorted;
+            this.failure = failure;
+        }
+
+        static Outcome failed(String failure) {
+            return new Outcome(false, failure);
+        }
+    }
+
+    /**
+     * The files changed and the files that failed, relative to the root and in path order.
+     */
+    public static final class Result {
+        private final int fileCount;
+        private final List<Path> sorted = new ArrayList<>();
+        private final Map<Path, String> failures = new LinkedHashMap<>();
+
+        private Result(int fileCount) {
+            this.fileCount = fileCount;
+        }
+
+        public int getFileCount() {
+            return fileCount;
+        }
+
+        public List<Path> getSorted() {
+            return Collections.unmodifiableList(sorted);
+        }
+
+        public Map<Path, String> getFailures() {
+            return Collections.unmodifiableMap(failures);
+        }
+    }
+}
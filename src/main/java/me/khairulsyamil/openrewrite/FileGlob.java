@@ -0,0 +1,91 @@
+package me.khairulsyamil.openrewrite;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Preconditions;
+import org.openrewrite.SourceFile;
+import org.openrewrite.Tree;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.internal.lang.NonNull;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.marker.SearchResult;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+
+/**
+ * A {@code filePattern} glob compiled once into a {@link PathMatcher} and matched against the file name of a source.
+ * <p>
+ * Uses the default file system glob syntax. As with {@link org.openrewrite.PathUtils#matchesGlob(Path, String)}, a
+ * leading {@code **}{@code /} also matches no directory at all, so {@code **}{@code /app.messages.json} matches the
+ * bare file name. A blank pattern matches every file.
+ */
+public final class FileGlob {
+    private static final FileGlob ALL = new FileGlob(null, null, null);
+
+    private final String glob;
+    private final PathMatcher matcher;
+
+    // The glob without its leading **/, when it has one.
+    private final PathMatcher fileNameMatcher;
+
+    private FileGlob(@Nullable String glob, @Nullable PathMatcher matcher, @Nullable PathMatcher fileNameMatcher) {
+        this.glob = glob;
+        this.matcher = matcher;
+        this.fileNameMatcher = fileNameMatcher;
+    }
+
+    public static FileGlob compile(@Nullable String glob) {
+        if (StringUtils.isBlank(glob)) {
+            return ALL;
+        }
+
+        FileSystem fileSystem = FileSystems.getDefault();
+
+        return new FileGlob(glob,
+                fileSystem.getPathMatcher("glob:" + glob),
+                glob.startsWith("**/") ? fileSystem.getPathMatcher("glob:" + glob.substring(3)) : null);
+    }
+
+    public boolean matchesAll() {
+        return matcher == null;
+    }
+
+    public boolean matches(Path sourcePath) {
+        if (matcher == null) {
+            return true;
+        }
+
+        Path fileName = sourcePath.getFileName();
+
+        return fileName != null
+                && (matcher.matches(fileName) || (fileNameMatcher != null && fileNameMatcher.matches(fileName)));
+    }
+
+    /**
+     * Wraps a visitor so that it only runs on sources matching this glob.
+     */
+    public TreeVisitor<?, ExecutionContext> check(TreeVisitor<?, ExecutionContext> visitor) {
+        if (matcher == null) {
+            return visitor;
+        }
+
+        return Preconditions.check(new TreeVisitor<Tree, ExecutionContext>() {
+            @Override
+            public Tree visit(@Nullable Tree tree, @NonNull ExecutionContext ctx) {
+                if (tree instanceof SourceFile && matches(((SourceFile) tree).getSourcePath())) {
+                    return SearchResult.found(tree);
+                }
+
+                return tree;
+            }
+        }, visitor);
+    }
+
+    @Override
+    public String toString() {
+        return "FileGlob{" + (glob == null ? "*" : glob) + "}";
+    }
+}
@@ -0,0 +1,321 @@
+package me.khairulsyamil.openrewrite;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.Tree;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.internal.lang.NonNull;
+import org.openrewrite.internal.lang.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Content addressed cache file, surviving between runs, of the sources a sorter already verified as sorted.
+ * <p>
+ * Each line holds the SHA-256 of the sorter version, the recipe key (recipe name and option values) and the
+ * printed source. A source whose hash is in the file is not sorted again. Any change to the content, to the options
+ * or to the version of the sorters produces a different hash, so stale entries are never hit.
+ * <p>
+ * A hit saves the sortedness check only: the source is still parsed, then printed to be hashed. On sorted sources
+ * printing and hashing takes about half the time of the check for properties files and Java classes, and about
+ * as long for JSON documents. The parse, usually the larger cost, is not saved.
+ * <p>
+ * The file is read once per run, kept in the {@link ExecutionContext}. Each source instance is hashed once per run.
+ * The scan phase of the recipe counts the sources its visitor is offered, see {@link #countVisits}, and the last
+ * visit of each cycle rewrites the file with only the hashes hit or added in the run, so entries of edited or
+ * deleted files do not pile up. Sources a visitor skipped, see {@link #exclude(ExecutionContext, SourceFile)}, are
+ * never recorded.
+ */
+public final class IncrementalCache {
+    // Part of every hash, a new version of the sorters may order differently.
+    static final String VERSION = Objects.toString(IncrementalCache.class.getPackage().getImplementationVersion(), "development");
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalCache.class);
+
+    private static final String RUN = IncrementalCache.class.getName() + ".run";
+    private static final String EXCLUDED = IncrementalCache.class.getName() + ".excluded";
+
+    private final Path file;
+
+    // Hashes read from the file.
+    private final Set<String> hashes = ConcurrentHashMap.newKeySet();
+
+    // Hashes hit or added in this run, the only ones written back.
+    private final Set<String> confirmed = ConcurrentHashMap.newKeySet();
+
+    // Hash of each source instance visited in this run, by recipe key and source id.
+    private final Map<String, Hashed> hashed = new ConcurrentHashMap<>();
+
+    // Content of the file as last read or written.
+    private Set<String> written = Collections.emptySet();
+
+    private IncrementalCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * The cache of a file for the run, read on first use in the run.
+     */
+    public static IncrementalCache open(ExecutionContext ctx, Path file) {
+        Map<Path, IncrementalCache> caches = SortedSourceMemo.computeMessageIfAbsent(ctx, RUN, ConcurrentHashMap::new);
+
+        return caches.computeIfAbsent(file.toAbsolutePath().normalize(), f -> {
+            IncrementalCache cache = new IncrementalCache(f);
+            cache.load();
+
+            return cache;
+        });
+    }
+
+    /**
+     * Writes the cache files of the run, when their content changed.
+     */
+    public static void flush(ExecutionContext ctx) {
+        Map<Path, IncrementalCache> caches = ctx.getMessage(RUN);
+
+        if (caches != null) {
+            for (IncrementalCache cache: caches.values()) {
+                cache.flush();
+            }
+        }
+    }
+
+    /**
+     * Marks a source as not to be recorded in this run, for visitors that leave a source unchanged without having
+     * fully checked it, such as a class skipped for unsupported statements.
+     */
+    public static void exclude(ExecutionContext ctx, SourceFile source) {
+        SortedSourceMemo.<Set<UUID>>computeMessageIfAbsent(ctx, EXCLUDED, ConcurrentHashMap::newKeySet).add(source.getId());
+    }
+
+    private static boolean isExcluded(ExecutionContext ctx, Tree source) {
+        Set<UUID> excluded = ctx.getMessage(EXCLUDED);
+
+        return excluded != null && excluded.contains(source.getId());
+    }
+
+    /**
+     * Scanner of a cached recipe, counts the sources the recipe's visitor accepts in the cycle. Does nothing when
+     * no cache file is configured.
+     */
+    public static TreeVisitor<?, ExecutionContext> countVisits(@Nullable String cacheFile, Visits visits, TreeVisitor<?, ExecutionContext> visitor) {
+        if (StringUtils.isBlank(cacheFile)) {
+            return TreeVisitor.noop();
+        }
+
+        return new TreeVisitor<Tree, ExecutionContext>() {
+            @Override
+            public boolean isAcceptable(@NonNull SourceFile sourceFile, @NonNull ExecutionContext ctx) {
+                return visitor.isAcceptable(sourceFile, ctx);
+            }
+
+            @Override
+            public Tree visit(@Nullable Tree tree, @NonNull ExecutionContext ctx) {
+                if (tree instanceof SourceFile) {
+                    visits.expected.incrementAndGet();
+                }
+
+                return tree;
+            }
+        };
+    }
+
+    /**
+     * Wraps the whole visitor of a cached recipe, the visit of the last source counted by {@link #countVisits}
+     * writes the cache file. Returns the visitor as is when no cache file is configured.
+     */
+    public static TreeVisitor<?, ExecutionContext> flushAfterLastVisit(@Nullable String cacheFile, Visits visits, TreeVisitor<?, ExecutionContext> visitor) {
+        if (StringUtils.isBlank(cacheFile)) {
+            return visitor;
+        }
+
+        Path path = Paths.get(cacheFile);
+
+        return new TreeVisitor<Tree, ExecutionContext>() {
+            @Override
+            public boolean isAcceptable(@NonNull SourceFile sourceFile, @NonNull ExecutionContext ctx) {
+                return visitor.isAcceptable(sourceFile, ctx);
+            }
+
+            @Override
+            public Tree visit(@Nullable Tree tree, @NonNull ExecutionContext ctx) {
+                if (!(tree instanceof SourceFile)) {
+                    return visitor.visit(tree, ctx);
+                }
+
+                try {
+                    return visitor.visit(tree, ctx);
+                } finally {
+                    // Sources added after the scan are visited later, each of them writes any hash it added.
+                    if (visits.visited.incrementAndGet() >= visits.expected.get()) {
+                        open(ctx, path).flush();
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps a sorter visitor with the cache, or returns the visitor as is when no cache file is configured.
+     *
+     * @param key identifies the recipe and its option values.
+     */
+    public static TreeVisitor<?, ExecutionContext> wrap(@Nullable String cacheFile, String key, TreeVisitor<?, ExecutionContext> visitor) {
+        if (StringUtils.isBlank(cacheFile)) {
+            return visitor;
+        }
+
+        Path path = Paths.get(cacheFile);
+
+        return new TreeVisitor<Tree, ExecutionContext>() {
+            @Override
+            public boolean isAcceptable(@NonNull SourceFile sourceFile, @NonNull ExecutionContext ctx) {
+                return visitor.isAcceptable(sourceFile, ctx);
+            }
+
+            @Override
+            public Tree visit(@Nullable Tree tree, @NonNull ExecutionContext ctx) {
+                if (!(tree instanceof SourceFile)) {
+                    return visitor.visit(tree, ctx);
+                }
+
+                IncrementalCache cache = open(ctx, path);
+                String hash = cache.hash(key, (SourceFile) tree);
+
+                if (cache.contains(hash)) {
+                    return tree;
+                }
+
+                Tree result = visitor.visit(tree, ctx);
+
+                if (result == tree && !isExcluded(ctx, tree)) {
+                    cache.add(hash);
+                }
+
+                return result;
+            }
+        };
+    }
+
+    public static String hash(String key, String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(VERSION.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(key.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(content.getBytes(StandardCharsets.UTF_8));
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The hash of a source, printed and hashed once per instance and recipe key in the run.
+     */
+    private String hash(String key, SourceFile source) {
+        String id = key + "\0" + source.getId();
+        Hashed previous = hashed.get(id);
+
+        if (previous != null && previous.source.get() == source) {
+            return previous.hash;
+        }
+
+        String hash = hash(key, source.printAll());
+        hashed.put(id, new Hashed(source, hash));
+
+        return hash;
+    }
+
+    /**
+     * Whether the hash is known, a known hash is kept in the file.
+     */
+    public boolean contains(String hash) {
+        if (hashes.contains(hash) || confirmed.contains(hash)) {
+            confirmed.add(hash);
+
+            return true;
+        }
+
+        return false;
+    }
+
+    public void add(String hash) {
+        confirmed.add(hash);
+    }
+
+    /**
+     * Rewrites the file with the hashes hit or added in this run, when they differ from its content.
+     */
+    synchronized void flush() {
+        Set<String> content = new TreeSet<>(confirmed);
+
+        if (content.equals(written)) {
+            return;
+        }
+
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+
+            Files.write(file, content, StandardCharsets.UTF_8);
+            written = content;
+        } catch (IOException e) {
+            // The cache is an optimisation only, the run continues without it.
+            logger.warn("Unable to write the incremental cache\nFile: {}", file, e);
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+
+        try {
+            for (String line: Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (StringUtils.isNotBlank(line)) {
+                    hashes.add(line.trim());
+                }
+            }
+
+            written = new TreeSet<>(hashes);
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Unable to read the incremental cache, starting empty\nFile: {}", file, e);
+        }
+    }
+
+    /**
+     * Sources a cached recipe is offered in one cycle, the accumulator of its scan phase.
+     */
+    public static final class Visits {
+        private final AtomicInteger expected = new AtomicInteger();
+        private final AtomicInteger visited = new AtomicInteger();
+    }
+
+    private static final class Hashed {
+        final WeakReference<SourceFile> source;
+        final String hash;
+
+        Hashed(SourceFile source, String hash) {
+            this.source = new WeakReference<>(source);
+            this.hash = hash;
+        }
+    }
+}
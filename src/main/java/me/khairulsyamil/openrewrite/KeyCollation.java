@@ -0,0 +1,278 @@
+package me.khairulsyamil.openrewrite;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openrewrite.internal.lang.NonNull;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Ordering of the keys sorted by the properties and JSON sorters, compiled once from a {@code collation} option.
+ * <ul>
+ *     <li>{@code ignore-case}, the default, orders like {@link String#compareToIgnoreCase(String)}.</li>
+ *     <li>{@code natural} also ignores case, and compares runs of digits by their numeric value, so {@code label.9}
+ *     sorts before {@code label.10}.</li>
+ *     <li>{@code locale} or {@code locale:<language tag>} orders with a {@link Collator}, of the root locale when no
+ *     tag is given so the order does not depend on the machine.</li>
+ * </ul>
+ * The comparison form of each key, a case folded string or a {@link CollationKey}, is computed once by
+ * {@link #key(String)}, comparing two {@link Key}s does no further folding.
+ */
+public final class KeyCollation {
+    public static final KeyCollation IGNORE_CASE = new KeyCollation(Mode.IGNORE_CASE, null, "ignore-case");
+
+    private enum Mode {
+        IGNORE_CASE,
+        NATURAL,
+        LOCALE
+    }
+
+    private final Mode mode;
+
+    @Nullable
+    private final Collator collator;
+
+    private final String name;
+
+    private KeyCollation(Mode mode, @Nullable Collator collator, String name) {
+        this.mode = mode;
+        this.collator = collator;
+        this.name = name;
+    }
+
+    /**
+     * @throws IllegalArgumentException on an unknown collation.
+     */
+    public static KeyCollation compile(@Nullable String collation) {
+        if (StringUtils.isBlank(collation)) {
+            return IGNORE_CASE;
+        }
+
+        String c = collation.trim();
+
+        if ("ignore-case".equalsIgnoreCase(c)) {
+            return IGNORE_CASE;
+        }
+
+        if ("natural".equalsIgnoreCase(c)) {
+            return new KeyCollation(Mode.NATURAL, null, "natural");
+        }
+
+        if ("locale".equalsIgnoreCase(c)) {
+            return new KeyCollation(Mode.LOCALE, Collator.getInstance(Locale.ROOT), "locale");
+        }
+
+        if (StringUtils.startsWithIgnoreCase(c, "locale:")) {
+            Locale locale = Locale.forLanguageTag(c.substring("locale:".length()).trim());
+
+            if (locale.getLanguage().isEmpty()) {
+                throw new IllegalArgumentException("Unknown locale in collation: " + collation);
+            }
+
+            return new KeyCollation(Mode.LOCALE, Collator.getInstance(locale), "locale:" + locale.toLanguageTag());
+        }
+
+        throw new IllegalArgumentException("Unknown collation: " + collation +
+                ", expected one of ignore-case, natural, locale or locale:<language tag>");
+    }
+
+    /**
+     * The comparison form of a key, to compute once per key and compare many times.
+     */
+    public Key key(String value) {
+        if (mode == Mode.LOCALE) {
+            // Collators are not thread-safe.
+            synchronized (collator) {
+                return new Key(this, null, collator.getCollationKey(value));
+            }
+        }
+
+        return new Key(this, fold(value), null);
+    }
+
+    /**
+     * Stable sort by the collation of a string extracted from each element, the key of each element is computed once.
+     */
+    public <T> List<T> sort(List<T> elements, Function<T, String> keyOf) {
+        List<Keyed<T>> keyed = keyed(elements, keyOf);
+        keyed.sort(null);
+
+        List<T> sorted = new ArrayList<>(keyed.size());
+
+        for (Keyed<T> k: keyed) {
+            sorted.add(k.element);
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Pairs each element with the key of a string extracted from it, sorting the result orders it by the keys.
+     */
+    public <T> List<Keyed<T>> keyed(List<T> elements, Function<T, String> keyOf) {
+        List<Keyed<T>> keyed = new ArrayList<>(elements.size());
+
+        for (T element: elements) {
+            keyed.add(new Keyed<>(key(keyOf.apply(element)), element));
+        }
+
+        return keyed;
+    }
+
+    /**
+     * Same folding as {@link String#compareToIgnoreCase(String)}, so comparing folded strings gives the same order.
+     * Returns the value itself when folding changes nothing.
+     */
+    public static String fold(String value) {
+        char[] chars = null;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            char folded = Character.toLowerCase(Character.toUpperCase(c));
+
+            if (folded != c) {
+                if (chars == null) {
+                    chars = value.toCharArray();
+                }
+
+                chars[i] = folded;
+            }
+        }
+
+        return chars == null ? value : new String(chars);
+    }
+
+    private static int compareNatural(String a, String b) {
+        int i = 0;
+        int j = 0;
+
+        while (i < a.length() && j < b.length()) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(j);
+
+            if (isDigit(ca) && isDigit(cb)) {
+                int startA = i;
+                int startB = j;
+
+                // Leading zeros do not change the value.
+                while (startA < a.length() - 1 && a.charAt(startA) == '0' && isDigit(a.charAt(startA + 1))) {
+                    startA++;
+                }
+
+                while (startB < b.length() - 1 && b.charAt(startB) == '0' && isDigit(b.charAt(startB + 1))) {
+                    startB++;
+                }
+
+                int endA = startA;
+                int endB = startB;
+
+                while (endA < a.length() && isDigit(a.charAt(endA))) {
+                    endA++;
+                }
+
+                while (endB < b.length() && isDigit(b.charAt(endB))) {
+                    endB++;
+                }
+
+                // More significant digits is a larger number, otherwise the digits compare in order.
+                int c = Integer.compare(endA - startA, endB - startB);
+
+                for (int k = 0; c == 0 && k < endA - startA; k++) {
+                    c = Character.compare(a.charAt(startA + k), b.charAt(startB + k));
+                }
+
+                if (c != 0) {
+                    return c;
+                }
+
+                i = endA;
+                j = endB;
+            } else {
+                if (ca != cb) {
+                    return Character.compare(ca, cb);
+                }
+
+                i++;
+                j++;
+            }
+        }
+
+        int c = Integer.compare(a.length() - i, b.length() - j);
+
+        // Equal apart from leading zeros, fall back to the plain order to stay consistent with equality.
+        return c != 0 ? c : a.compareTo(b);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * A precomputed comparison form. Keys are only comparable with keys of the same collation.
+     */
+    public static final class Key implements Comparable<Key> {
+        private final KeyCollation collation;
+
+        @Nullable
+        private final String folded;
+
+        @Nullable
+        private final CollationKey collationKey;
+
+        private Key(KeyCollation collation, @Nullable String folded, @Nullable CollationKey collationKey) {
+            this.collation = collation;
+            this.folded = folded;
+            this.collationKey = collationKey;
+        }
+
+        @Override
+        public int compareTo(@NonNull Key o) {
+            return switch (collation.mode) {
+                case IGNORE_CASE -> folded.compareTo(o.folded);
+                case NATURAL -> compareNatural(folded, o.folded);
+                case LOCALE -> collationKey.compareTo(o.collationKey);
+            };
+        }
+
+        @Override
+        public String toString() {
+            return collationKey != null ? collationKey.getSourceString() : folded;
+        }
+    }
+
+    /**
+     * An element with the key it sorts by.
+     */
+    public static final class Keyed<T> implements Comparable<Keyed<T>> {
+        private final Key key;
+        private final T element;
+
+        private Keyed(Key key, T element) {
+            this.key = key;
+            this.element = element;
+        }
+
+        public Key getKey() {
+            return key;
+        }
+
+        public T getElement() {
+            return element;
+        }
+
+        @Override
+        public int compareTo(@NonNull Keyed<T> o) {
+            return key.compareTo(o.key);
+        }
+    }
+}
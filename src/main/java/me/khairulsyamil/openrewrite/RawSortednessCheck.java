@@ -0,0 +1,397 @@
+package me.khairulsyamil.openrewrite;
+
+import org.openrewrite.internal.lang.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Pre-parse check of whether a properties or JSON file is already in the form the sorters produce, scanning the
+ * keys straight from the bytes, so files found sorted never need to be parsed into an LST. Files are read into
+ * the heap, only files larger than {@link #MAP_THRESHOLD} are memory-mapped, so checking many small files does not
+ * pile up mappings that would also keep the files from being rewritten on Windows.
+ * <p>
+ * The check mirrors the conditions under which {@code PropertiesSorter} and {@code JsonSorter} with their default
+ * options leave a file unchanged. It is conservative: anything it does not fully understand, such as comments in a
+ * properties file, JSON keys in single quotes or with escapes, or two adjacent JSON members with the same key,
+ * counts as not sorted and leaves the decision to the sorter.
+ */
+public final class RawSortednessCheck {
+    static final long MAP_THRESHOLD = 16 * 1024 * 1024;
+
+    private final FileGlob fileGlob;
+    private final KeyCollation collation;
+
+    private RawSortednessCheck(FileGlob fileGlob, KeyCollation collation) {
+        this.fileGlob = fileGlob;
+        this.collation = collation;
+    }
+
+    public static RawSortednessCheck of(@Nullable String filePattern, @Nullable String collation) {
+        return new RawSortednessCheck(FileGlob.compile(filePattern), KeyCollation.compile(collation));
+    }
+
+    /**
+     * The candidates that match the file pattern and are not known to be sorted, the only ones worth parsing.
+     */
+    public List<Path> requiringParse(Collection<Path> candidates) throws IOException {
+        List<Path> unsorted = new ArrayList<>();
+
+        for (Path candidate: candidates) {
+            if (fileGlob.matches(candidate) && !isSorted(candidate)) {
+                unsorted.add(candidate);
+            }
+        }
+
+        return unsorted;
+    }
+
+    /**
+     * Whether the sorter is known to leave the file unchanged, by its extension.
+     */
+    public boolean isSorted(Path file) throws IOException {
+        String name = String.valueOf(file.getFileName());
+
+        if (name.endsWith(".properties")) {
+            return isSortedProperties(read(file));
+        }
+
+        if (name.endsWith(".json")) {
+            return isSortedJson(read(file));
+        }
+
+        return false;
+    }
+
+    @Nullable
+    private static ByteBuffer read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            if (size > MAP_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+
+            ByteBuffer bytes = ByteBuffer.allocate((int) size);
+
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes) < 0) {
+                    break;
+                }
+            }
+
+            return bytes.flip();
+        }
+    }
+
+    /**
+     * One entry per line after the first with no blank lines, comments or indentation, keys in order. Continuation
+     * lines are part of their entry, and a key continued on the next line is compared without the line break, as
+     * the parser reads it. Escapes are kept as written, like the keys of the LST.
+     */
+    boolean isSortedProperties(@Nullable ByteBuffer bytes) {
+        if (bytes == null) {
+            return false;
+        }
+
+        int limit = bytes.limit();
+        int i = 0;
+        KeyCollation.Key previous = null;
+        ByteArrayOutputStream key = new ByteArrayOutputStream(64);
+
+        // Leading whitespace before the first entry stays with it.
+        while (i < limit && isSpace(bytes.get(i)) || i < limit && isNewline(bytes.get(i))) {
+            i++;
+        }
+
+        while (i < limit) {
+            byte b = bytes.get(i);
+
+            if (b == '#' || b == '!' || isSpace(b) || isNewline(b)) {
+                // Comment, blank line or indentation.
+                return false;
+            }
+
+            key.reset();
+
+            // Key up to the first unescaped separator.
+            while (i < limit) {
+                b = bytes.get(i);
+
+                if (b == '\\') {
+                    if (i + 1 < limit && isNewline(bytes.get(i + 1))) {
+                        // Continued key, the line break and the next line's indentation are not part of it.
+                        i = skipLineBreak(bytes, i + 1);
+
+                        while (i < limit && isSpace(bytes.get(i))) {
+                            i++;
+                        }
+
+                        continue;
+                    }
+
+                    key.write(b);
+
+                    if (i + 1 < limit) {
+                        key.write(bytes.get(i + 1));
+                    }
+
+                    i += 2;
+                    continue;
+                }
+
+                if (b == '=' || b == ':' || isSpace(b) || isNewline(b)) {
+                    break;
+                }
+
+                key.write(b);
+                i++;
+            }
+
+            while (i < limit && isSpace(bytes.get(i))) {
+                i++;
+            }
+
+            if (i >= limit || (bytes.get(i) != '=' && bytes.get(i) != ':')) {
+                // Entries without a separator are parsed unlike the properties format.
+                return false;
+            }
+
+            KeyCollation.Key current = collation.key(key.toString(StandardCharsets.UTF_8));
+
+            if (previous != null && previous.compareTo(current) > 0) {
+                return false;
+            }
+
+            previous = current;
+
+            // Value up to the end of the logical line.
+            boolean escaped = false;
+            int lastNonSpace = -1;
+
+            while (i < limit) {
+                b = bytes.get(i);
+
+                if (isNewline(b)) {
+                    if (!escaped) {
+                        break;
+                    }
+
+                    i = skipLineBreak(bytes, i);
+                    escaped = false;
+                    continue;
+                }
+
+                if (!isSpace(b)) {
+                    lastNonSpace = i;
+                }
+
+                escaped = b == '\\' && !escaped;
+                i++;
+            }
+
+            if (i >= limit) {
+                // Trailing whitespace of the last entry is the end of file.
+                return true;
+            }
+
+            if (lastNonSpace >= 0 && lastNonSpace < i - 1) {
+                // Trailing whitespace becomes the prefix of the next entry.
+                return hasOnlyWhitespace(bytes, i);
+            }
+
+            if (bytes.get(i) == '\r') {
+                // The parser keeps the carriage return in the prefix of the next entry.
+                return hasOnlyWhitespace(bytes, i);
+            }
+
+            i = skipLineBreak(bytes, i);
+
+            if (hasOnlyWhitespace(bytes, i)) {
+                return true;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Every object, nested ones included, has its keys in order and no adjacent members with the same key.
+     * Keys are compared as written, quotes included, like the LST keys.
+     */
+    boolean isSortedJson(@Nullable ByteBuffer bytes) {
+        if (bytes == null) {
+            return false;
+        }
+
+        int limit = bytes.limit();
+        // Previous key of each open object, null for arrays.
+        Deque<KeyCollation.Key[]> objects = new ArrayDeque<>();
+        Deque<String[]> previousKeys = new ArrayDeque<>();
+        ByteArrayOutputStream token = new ByteArrayOutputStream(64);
+        boolean expectKey = false;
+
+        for (int i = 0; i < limit; ) {
+            byte b = bytes.get(i);
+
+            switch (b) {
+                case '{' -> {
+                    objects.push(new KeyCollation.Key[1]);
+                    previousKeys.push(new String[1]);
+                    expectKey = true;
+                    i++;
+                }
+                case '[' -> {
+                    objects.push(new KeyCollation.Key[0]);
+                    previousKeys.push(new String[0]);
+                    expectKey = false;
+                    i++;
+                }
+                case '}', ']' -> {
+                    if (objects.isEmpty()) {
+                        return false;
+                    }
+
+                    objects.pop();
+                    previousKeys.pop();
+                    expectKey = false;
+                    i++;
+                }
+                case ',' -> {
+                    expectKey = !objects.isEmpty() && objects.peek().length == 1;
+                    i++;
+                }
+                case ':' -> {
+                    expectKey = false;
+                    i++;
+                }
+                case '/' -> {
+                    // Comments.
+                    if (i + 1 < limit && bytes.get(i + 1) == '/') {
+                        while (i < limit && !isNewline(bytes.get(i))) {
+                            i++;
+                        }
+                    } else if (i + 1 < limit && bytes.get(i + 1) == '*') {
+                        i += 2;
+
+                        while (i + 1 < limit && !(bytes.get(i) == '*' && bytes.get(i + 1) == '/')) {
+                            i++;
+                        }
+
+                        i += 2;
+                    } else {
+                        return false;
+                    }
+                }
+                case '"', '\'' -> {
+                    token.reset();
+                    token.write(b);
+                    i++;
+
+                    while (i < limit && bytes.get(i) != b) {
+                        token.write(bytes.get(i));
+
+                        if (bytes.get(i) == '\\' && i + 1 < limit) {
+                            token.write(bytes.get(++i));
+                        }
+
+                        i++;
+                    }
+
+                    if (i >= limit) {
+                        return false;
+                    }
+
+                    token.write(b);
+                    i++;
+
+                    if (expectKey && !key(objects, previousKeys, token.toString(StandardCharsets.UTF_8))) {
+                        return false;
+                    }
+
+                    expectKey = false;
+                }
+                default -> {
+                    if (expectKey && !isSpace(b) && !isNewline(b)) {
+                        // Unquoted keys.
+                        return false;
+                    }
+
+                    i++;
+                }
+            }
+        }
+
+        return objects.isEmpty();
+    }
+
+    private boolean key(Deque<KeyCollation.Key[]> objects, Deque<String[]> previousKeys, String source) {
+        KeyCollation.Key[] previous = objects.peek();
+        String[] previousSource = previousKeys.peek();
+
+        if (previous == null || previous.length == 0) {
+            return false;
+        }
+
+        if (source.charAt(0) == '\'' || source.indexOf('\\') >= 0) {
+            // The sorter compares key values, a key written another way may be a duplicate.
+            return false;
+        }
+
+        if (source.equals(previousSource[0])) {
+            // Possibly a duplicate to remove, only the sorter can compare the values.
+            return false;
+        }
+
+        KeyCollation.Key current = collation.key(source);
+
+        if (previous[0] != null && previous[0].compareTo(current) > 0) {
+            return false;
+        }
+
+        previous[0] = current;
+        previousSource[0] = source;
+
+        return true;
+    }
+
+    private static boolean hasOnlyWhitespace(ByteBuffer bytes, int from) {
+        for (int i = from; i < bytes.limit(); i++) {
+            if (!isSpace(bytes.get(i)) && !isNewline(bytes.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int skipLineBreak(ByteBuffer bytes, int i) {
+        if (bytes.get(i) == '\r' && i + 1 < bytes.limit() && bytes.get(i + 1) == '\n') {
+            return i + 2;
+        }
+
+        return i + 1;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\f';
+    }
+
+    private static boolean isNewline(byte b) {
+        return b == '\n' || b == '\r';
+    }
+}
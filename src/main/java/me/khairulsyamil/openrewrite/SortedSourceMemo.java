@@ -0,0 +1,89 @@
+package me.khairulsyamil.openrewrite;
+
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.Tree;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.internal.lang.NonNull;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Per run memo, kept in the {@link ExecutionContext}, of the sources a sorter already checked and left unchanged.
+ * <p>
+ * LST trees are immutable, so a source that no recipe touched since is passed to the next cycle as the identical
+ * instance. The memo maps the source id to a weak reference of the instance that was found sorted, and later
+ * cycles skip that source in constant time. Any edit produces a new instance, which is visited again.
+ */
+public final class SortedSourceMemo {
+    private static final String MESSAGE_PREFIX = SortedSourceMemo.class.getName() + ".";
+
+    private SortedSourceMemo() {
+    }
+
+    /**
+     * Wraps a sorter visitor with the memo.
+     *
+     * @param key identifies the recipe and its option values, sorters with the same key share the memo.
+     */
+    public static TreeVisitor<?, ExecutionContext> memoize(String key, TreeVisitor<?, ExecutionContext> visitor) {
+        String message = MESSAGE_PREFIX + key;
+
+        return new TreeVisitor<Tree, ExecutionContext>() {
+            @Override
+            public boolean isAcceptable(@NonNull SourceFile sourceFile, @NonNull ExecutionContext ctx) {
+                return visitor.isAcceptable(sourceFile, ctx);
+            }
+
+            @Override
+            public Tree visit(@Nullable Tree tree, @NonNull ExecutionContext ctx) {
+                if (!(tree instanceof SourceFile)) {
+                    return visitor.visit(tree, ctx);
+                }
+
+                Map<UUID, WeakReference<Tree>> sorted = computeMessageIfAbsent(ctx, message, ConcurrentHashMap::new);
+
+                WeakReference<Tree> seen = sorted.get(tree.getId());
+                if (seen != null && seen.get() == tree) {
+                    return tree;
+                }
+
+                Tree result = visitor.visit(tree, ctx);
+
+                if (result == tree) {
+                    sorted.put(tree.getId(), new WeakReference<>(tree));
+                }
+
+                return result;
+            }
+        };
+    }
+
+    /**
+     * The message of the run under a key, installed once even when sources are visited concurrently. The execution
+     * context only offers a check-then-act get and put, so the install is done under its lock.
+     */
+    static <T> T computeMessageIfAbsent(ExecutionContext ctx, String key, Supplier<T> initial) {
+        T value = ctx.getMessage(key);
+
+        if (value != null) {
+            return value;
+        }
+
+        synchronized (ctx) {
+            value = ctx.getMessage(key);
+
+            if (value == null) {
+                value = initial.get();
+                ctx.putMessage(key, value);
+            }
+
+            return value;
+        }
+    }
+}
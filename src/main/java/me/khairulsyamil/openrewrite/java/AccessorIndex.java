@@ -0,0 +1,113 @@
+package me.khairulsyamil.openrewrite.java;
+
+import me.khairulsyamil.openrewrite.KeyCollation;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Per class index of field names, used to map each accessor method to its field.
+ * <p>
+ * Accessors ({@code getX}, {@code isX}, {@code hasX}, {@code setX} and the fluent {@code x}) are keyed by
+ * their field, any other method by its own name. Keys are case folded once, so the comparator never does
+ * string work. Constructors are never accessors, even when a field has the name of the class.
+ */
+final class AccessorIndex {
+    // Separates the group from the accessor kind, sorts before any character of a longer name.
+    private static final char SEPARATOR = '\u0000';
+
+    private static final char FLUENT = '0';
+    private static final char GETTER = '1';
+    private static final char SETTER = '2';
+
+    private final Set<String> fields = new HashSet<>();
+
+    void addField(String name) {
+        fields.add(KeyCollation.fold(name));
+    }
+
+    /**
+     * Returns the case folded sort name of a method: getters sort as their field followed by {@code g}, setters
+     * followed by {@code s}, any other method as its name. Same placement as the original get/set normalisation.
+     */
+    String sortName(String methodName) {
+        String name = KeyCollation.fold(methodName);
+
+        if (fields.isEmpty() || fields.contains(name)) {
+            return name;
+        }
+
+        String field = getterField(name);
+        if (field != null) {
+            return field + 'g';
+        }
+
+        field = field(name, "set");
+        if (field != null) {
+            return field + 's';
+        }
+
+        return name;
+    }
+
+    /**
+     * Returns the case folded group key of a method, accessors of the same field share the same group prefix
+     * and sort right after each other, ahead of other names starting with the field name.
+     */
+    String groupKey(String methodName) {
+        String name = KeyCollation.fold(methodName);
+
+        if (fields.isEmpty()) {
+            return name;
+        }
+
+        if (fields.contains(name)) {
+            return name + SEPARATOR + FLUENT;
+        }
+
+        String field = getterField(name);
+        if (field != null) {
+            return field + SEPARATOR + GETTER;
+        }
+
+        field = field(name, "set");
+        if (field != null) {
+            return field + SEPARATOR + SETTER;
+        }
+
+        return name;
+    }
+
+    /**
+     * Returns the group part of a key built by {@link #groupKey(String)}.
+     */
+    static String group(String groupKey) {
+        int i = groupKey.indexOf(SEPARATOR);
+
+        return i < 0 ? groupKey : groupKey.substring(0, i);
+    }
+
+    private String getterField(String name) {
+        String field = field(name, "get");
+        if (field == null) {
+            field = field(name, "is");
+        }
+        if (field == null) {
+            field = field(name, "has");
+        }
+
+        return field;
+    }
+
+    private String field(String name, String prefix) {
+        if (name.length() > prefix.length() && name.startsWith(prefix)) {
+            String candidate = name.substring(prefix.length());
+
+            if (fields.contains(candidate)) {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+}
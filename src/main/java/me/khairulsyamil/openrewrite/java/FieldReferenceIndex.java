@@ -0,0 +1,214 @@
+package me.khairulsyamil.openrewrite.java;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.openrewrite.java.JavaIsoVisitor;
+import org.openrewrite.java.tree.Expression;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.Statement;
+
+import java.util.*;
+
+/**
+ * Per class index of which field declarations have initializers reading sibling fields by their simple name.
+ * <p>
+ * Java rejects such a read when the sibling is declared later (an illegal forward reference), so the field
+ * order is constrained to place every field after the fields its initializers read, falling back to the
+ * sort key order everywhere else. Only fields of the same kind (static or instance) constrain each other.
+ */
+final class FieldReferenceIndex {
+    private static final FieldReferenceIndex EMPTY = new FieldReferenceIndex(Collections.emptyMap(), Collections.emptySet());
+
+    // Declaration id to the ids of the sibling declarations its initializers read.
+    private final Map<UUID, Set<UUID>> dependencies;
+
+    // Declarations where one variable's initializer reads another variable of the same declaration.
+    private final Set<UUID> selfReferencing;
+
+    private FieldReferenceIndex(Map<UUID, Set<UUID>> dependencies, Set<UUID> selfReferencing) {
+        this.dependencies = dependencies;
+        this.selfReferencing = selfReferencing;
+    }
+
+    static FieldReferenceIndex build(List<J.VariableDeclarations> fields) {
+        Map<String, J.VariableDeclarations> declarations = new HashMap<>();
+
+        for (J.VariableDeclarations vd: fields) {
+            for (J.VariableDeclarations.NamedVariable nv: vd.getVariables()) {
+                declarations.put(nv.getSimpleName(), vd);
+            }
+        }
+
+        Map<UUID, Set<UUID>> dependencies = new HashMap<>();
+        Set<UUID> selfReferencing = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        SimpleNameCollector collector = new SimpleNameCollector();
+
+        for (J.VariableDeclarations vd: fields) {
+            names.clear();
+
+            for (J.VariableDeclarations.NamedVariable nv: vd.getVariables()) {
+                if (nv.getInitializer() != null) {
+                    collector.visit(nv.getInitializer(), names);
+                }
+            }
+
+            for (String name: names) {
+                J.VariableDeclarations referenced = declarations.get(name);
+
+                if (referenced == null) {
+                    continue;
+                }
+
+                if (referenced == vd) {
+                    selfReferencing.add(vd.getId());
+                } else if (vd.hasModifier(J.Modifier.Type.Static) == referenced.hasModifier(J.Modifier.Type.Static)) {
+                    dependencies.computeIfAbsent(vd.getId(), k -> new HashSet<>()).add(referenced.getId());
+                }
+            }
+        }
+
+        if (dependencies.isEmpty() && selfReferencing.isEmpty()) {
+            return EMPTY;
+        }
+
+        return new FieldReferenceIndex(dependencies, selfReferencing);
+    }
+
+    /**
+     * Whether the variables of a declaration read each other, so their order within it must not change.
+     */
+    boolean isSelfReferencing(J.VariableDeclarations vd) {
+        return selfReferencing.contains(vd.getId());
+    }
+
+    /**
+     * Linear check that every field comes after the fields it reads.
+     */
+    boolean isSatisfiedBy(List<Pair<MemberSortKey, Statement>> order) {
+        if (dependencies.isEmpty()) {
+            return true;
+        }
+
+        Set<UUID> placed = new HashSet<>(order.size());
+
+        for (Pair<MemberSortKey, Statement> p: order) {
+            UUID id = p.getValue().getId();
+
+            if (!placed.containsAll(dependencies.getOrDefault(id, Collections.emptySet()))) {
+                return false;
+            }
+
+            placed.add(id);
+        }
+
+        return true;
+    }
+
+    /**
+     * Reorders a list sorted by key into the smallest-key-first topological order of the references.
+     * Reference cycles, which can only come from reads that are not real forward references such as
+     * reads inside lambdas, are broken by releasing the smallest remaining key.
+     */
+    List<Pair<MemberSortKey, Statement>> order(List<Pair<MemberSortKey, Statement>> sorted) {
+        if (dependencies.isEmpty() || isSatisfiedBy(sorted)) {
+            return sorted;
+        }
+
+        int size = sorted.size();
+        Map<UUID, Integer> positions = new HashMap<>(size * 2);
+
+        for (int i = 0; i < size; i++) {
+            positions.put(sorted.get(i).getValue().getId(), i);
+        }
+
+        int[] pending = new int[size];
+        List<List<Integer>> dependents = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            dependents.add(new ArrayList<>(0));
+        }
+
+        for (int i = 0; i < size; i++) {
+            for (UUID dependency: dependencies.getOrDefault(sorted.get(i).getValue().getId(), Collections.emptySet())) {
+                Integer d = positions.get(dependency);
+
+                if (d != null) {
+                    dependents.get(d).add(i);
+                    pending[i]++;
+                }
+            }
+        }
+
+        // Positions follow the key order, so the smallest available position is the smallest available key.
+        PriorityQueue<Integer> available = new PriorityQueue<>();
+        for (int i = 0; i < size; i++) {
+            if (pending[i] == 0) {
+                available.add(i);
+            }
+        }
+
+        boolean[] done = new boolean[size];
+        int nextUndone = 0;
+        List<Pair<MemberSortKey, Statement>> ordered = new ArrayList<>(size);
+
+        while (ordered.size() < size) {
+            int i;
+
+            if (available.isEmpty()) {
+                while (done[nextUndone]) {
+                    nextUndone++;
+                }
+
+                i = nextUndone;
+            } else {
+                i = available.poll();
+
+                if (done[i]) {
+                    continue;
+                }
+            }
+
+            done[i] = true;
+            ordered.add(sorted.get(i));
+
+            for (int dependent: dependents.get(i)) {
+                if (--pending[dependent] == 0 && !done[dependent]) {
+                    available.add(dependent);
+                }
+            }
+        }
+
+        return ordered;
+    }
+
+    /**
+     * Collects identifiers that can be unqualified reads of a field, skipping member names of field accesses
+     * and method invocations.
+     */
+    private static class SimpleNameCollector extends JavaIsoVisitor<Set<String>> {
+        @Override
+        public J.Identifier visitIdentifier(J.Identifier identifier, Set<String> names) {
+            names.add(identifier.getSimpleName());
+
+            return identifier;
+        }
+
+        @Override
+        public J.FieldAccess visitFieldAccess(J.FieldAccess fieldAccess, Set<String> names) {
+            visit(fieldAccess.getTarget(), names);
+
+            return fieldAccess;
+        }
+
+        @Override
+        public J.MethodInvocation visitMethodInvocation(J.MethodInvocation method, Set<String> names) {
+            visit(method.getSelect(), names);
+
+            for (Expression argument: method.getArguments()) {
+                visit(argument, names);
+            }
+
+            return method;
+        }
+    }
+}
@@ -1,19 +1,122 @@
 package me.khairulsyamil.openrewrite.java;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import me.khairulsyamil.openrewrite.IncrementalCache;
+import me.khairulsyamil.openrewrite.KeyCollation;
+import me.khairulsyamil.openrewrite.SortedSourceMemo;
+import me.khairulsyamil.openrewrite.table.SortViolations;
+import me.khairulsyamil.openrewrite.table.UnsupportedClassStatements;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.openrewrite.ExecutionContext;
-import org.openrewrite.Recipe;
+import org.openrewrite.Option;
+import org.openrewrite.ScanningRecipe;
+import org.openrewrite.SourceFile;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.Validated;
 import org.openrewrite.internal.lang.NonNull;
+import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.java.JavaIsoVisitor;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
-public class JavaMethodSorter extends Recipe {
+public class JavaMethodSorter extends ScanningRecipe<IncrementalCache.Visits> {
+    private static final Logger logger = LoggerFactory.getLogger(JavaMethodSorter.class);
+
+    @Option(displayName = "Method order",
+            description = "Precedence of the criteria used to order methods, from any of `constructor`, `annotation`, `static`, `final` and `access`. The name is always compared last. Null uses the default order.",
+            required = false,
+            example = "constructor, annotation, static, final, access")
+    @Nullable
+    List<String> methodOrder;
+
+    @Option(displayName = "Field order",
+            description = "Precedence of the criteria used to order fields, from any of `annotation`, `static`, `final` and `access`. The name is always compared last. Null uses the default order.",
+            required = false,
+            example = "static, final, annotation, access")
+    @Nullable
+    List<String> fieldOrder;
+
+    @Option(displayName = "Method annotations",
+            description = "Annotation simple names that move methods ahead of the others, highest priority first. Names separated by `|` share the same priority. Null uses the JUnit `Before*`/`After*` annotations.",
+            required = false,
+            example = "Before|BeforeClass|BeforeEach|BeforeAll, After|AfterClass|AfterEach|AfterAll")
+    @Nullable
+    List<String> methodAnnotations;
+
+    @Option(displayName = "Field annotations",
+            description = "Annotation simple names that move fields ahead of the others, highest priority first. Names separated by `|` share the same priority. Null uses `Mock`.",
+            required = false,
+            example = "Mock, Inject")
+    @Nullable
+    List<String> fieldAnnotations;
+
+    @Option(displayName = "Group accessors",
+            description = "Keep the getters, setters and fluent accessors of a field and the overloads of a method adjacent, each group ranked by its best ranked method. Constructors are never grouped. Off by default.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean groupAccessors;
+
+    @Option(displayName = "Skip unsupported classes",
+            description = "Leave classes containing unsupported statements untouched and report them in a data table, instead of failing the run.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean skipUnsupported;
+
+    @Option(displayName = "Cache file",
+            description = "Enables incremental mode. A local file recording the content hashes of sources already verified as sorted, those sources are not checked again on later runs. Sources are still parsed and printed to be hashed, so only the sortedness check is saved. Blank/null disables the cache.",
+            required = false,
+            example = "target/rewrite-sorter.cache")
+    @Nullable
+    String cacheFile;
+
+    @Option(displayName = "Check only",
+            description = "Only report the first pair of members out of order in each file in a data table, without changing any file.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean checkOnly;
+
+    transient UnsupportedClassStatements unsupportedStatements = new UnsupportedClassStatements(this);
+
+    transient SortViolations sortViolations = new SortViolations(this);
+
+    @JsonIgnore
+    @Nullable
+    private transient MemberOrdering ordering;
+
+    public JavaMethodSorter() {
+        this(null, null, null, null, null, null, null, null);
+    }
+
+    @JsonCreator
+    public JavaMethodSorter(@Nullable @JsonProperty("methodOrder") List<String> methodOrder,
+                            @Nullable @JsonProperty("fieldOrder") List<String> fieldOrder,
+                            @Nullable @JsonProperty("methodAnnotations") List<String> methodAnnotations,
+                            @Nullable @JsonProperty("fieldAnnotations") List<String> fieldAnnotations,
+                            @Nullable @JsonProperty("groupAccessors") Boolean groupAccessors,
+                            @Nullable @JsonProperty("skipUnsupported") Boolean skipUnsupported,
+                            @Nullable @JsonProperty("cacheFile") String cacheFile,
+                            @Nullable @JsonProperty("checkOnly") Boolean checkOnly) {
+        this.methodOrder = methodOrder;
+        this.fieldOrder = fieldOrder;
+        this.methodAnnotations = methodAnnotations;
+        this.fieldAnnotations = fieldAnnotations;
+        this.groupAccessors = groupAccessors;
+        this.skipUnsupported = skipUnsupported;
+        this.cacheFile = cacheFile;
+        this.checkOnly = checkOnly;
+    }
+
     @Override
     public @NonNull String getDisplayName() {
         return "JavaMethodSorter";
@@ -30,223 +133,334 @@ public class JavaMethodSorter extends Recipe {
     }
 
     @Override
-    public @NonNull JavaIsoVisitor<ExecutionContext> getVisitor() {
-        return new JavaMethodSorterVisitor();
+    public @NonNull Validated<Object> validate() {
+        Validated<Object> validated = super.validate();
+
+        // Each precedence list on its own, so the failure names the invalid option.
+        if (methodOrder != null) {
+            try {
+                MemberOrdering.criteria(methodOrder);
+            } catch (IllegalArgumentException e) {
+                validated = validated.and(Validated.invalid("methodOrder", methodOrder, e.getMessage(), e));
+            }
+        }
+
+        if (fieldOrder != null) {
+            try {
+                MemberOrdering.criteria(fieldOrder);
+            } catch (IllegalArgumentException e) {
+                validated = validated.and(Validated.invalid("fieldOrder", fieldOrder, e.getMessage(), e));
+            }
+        }
+
+        return validated;
+    }
+
+    @Override
+    public IncrementalCache.Visits getInitialValue(@NonNull ExecutionContext ctx) {
+        return new IncrementalCache.Visits();
+    }
+
+    @Override
+    public @NonNull TreeVisitor<?, ExecutionContext> getScanner(@NonNull IncrementalCache.Visits visits) {
+        // Only counts the sources, so the last one visited writes the cache file.
+        return IncrementalCache.countVisits(Boolean.TRUE.equals(checkOnly) ? null : cacheFile, visits, getVisitor(visits));
+    }
+
+    @Override
+    public @NonNull TreeVisitor<?, ExecutionContext> getVisitor(@NonNull IncrementalCache.Visits visits) {
+        if (Boolean.TRUE.equals(checkOnly)) {
+            // Never memoized nor cached, an unchanged source is not proof of a sorted one in this mode.
+            return new JavaMethodSorterVisitor(getOrdering(), null, sortViolations);
+        }
+
+        // Sources found sorted are skipped in later cycles, and in later runs when the cache file is set.
+        String key = memoKey();
+
+        return IncrementalCache.flushAfterLastVisit(cacheFile, visits, SortedSourceMemo.memoize(key, IncrementalCache.wrap(cacheFile, key,
+                new JavaMethodSorterVisitor(getOrdering(), Boolean.TRUE.equals(skipUnsupported) ? unsupportedStatements : null))));
+    }
+
+    private String memoKey() {
+        return "JavaMethodSorter{methodOrder=" + methodOrder +
+                ", fieldOrder=" + fieldOrder +
+                ", methodAnnotations=" + methodAnnotations +
+                ", fieldAnnotations=" + fieldAnnotations +
+                ", groupAccessors=" + groupAccessors +
+                ", skipUnsupported=" + skipUnsupported + "}";
+    }
+
+    private MemberOrdering getOrdering() {
+        // Compiled once per recipe instance, getVisitor() is called for every source file.
+        if (ordering == null) {
+            ordering = MemberOrdering.compile(methodOrder, fieldOrder, methodAnnotations, fieldAnnotations,
+                    Boolean.TRUE.equals(groupAccessors));
+        }
+
+        return ordering;
     }
 
     public static class JavaMethodSorterVisitor extends JavaIsoVisitor<ExecutionContext> {
+        private static final Comparator<J.VariableDeclarations.NamedVariable> VARIABLE_ORDER =
+                (anv, bnv) -> StringUtils.compareIgnoreCase(anv.getSimpleName(), bnv.getSimpleName());
+
+        private final MemberOrdering ordering;
+        private final UnsupportedClassStatements unsupportedStatements;
+        private final SortViolations sortViolations;
+
+        // Check only mode stops at the first violation of each source.
+        private boolean violationFound;
+
+        public JavaMethodSorterVisitor() {
+            this(MemberOrdering.DEFAULT, null);
+        }
+
+        /**
+         * @param unsupportedStatements when not null, classes with unsupported statements are skipped and
+         *                              reported here instead of failing with an {@link UnsupportedOperationException}.
+         */
+        public JavaMethodSorterVisitor(MemberOrdering ordering, @Nullable UnsupportedClassStatements unsupportedStatements) {
+            this(ordering, unsupportedStatements, null);
+        }
+
+        /**
+         * @param sortViolations when not null, check only mode: the first violation of each source is reported here
+         *                       and no tree is changed. Classes with unsupported statements are reported as such.
+         */
+        public JavaMethodSorterVisitor(MemberOrdering ordering,
+                                       @Nullable UnsupportedClassStatements unsupportedStatements,
+                                       @Nullable SortViolations sortViolations) {
+            this.ordering = ordering;
+            this.unsupportedStatements = unsupportedStatements;
+            this.sortViolations = sortViolations;
+        }
+
+        @Override
+        public @NonNull J.CompilationUnit visitCompilationUnit(@NonNull J.CompilationUnit cu, @NonNull ExecutionContext ctx) {
+            violationFound = false;
+
+            return super.visitCompilationUnit(cu, ctx);
+        }
 
         @Override
         public @NonNull J.ClassDeclaration visitClassDeclaration(@NonNull J.ClassDeclaration cd, @NonNull ExecutionContext ctx) {
+            if (violationFound) {
+                return cd;
+            }
+
             J.ClassDeclaration p = super.visitClassDeclaration(cd, ctx);
 
-            p = sortMethods(p);
+            p = sortMethods(p, ctx);
 
             return p;
         }
 
-        private J.ClassDeclaration sortMethods(@NonNull J.ClassDeclaration cd) {
+        private J.ClassDeclaration sortMethods(@NonNull J.ClassDeclaration cd, @NonNull ExecutionContext ctx) {
             J.Block block = cd.getBody();
             if (CollectionUtils.isEmpty(block.getStatements())) {
                 return cd;
             }
 
-            boolean anyUnsupportedStatements = block.getStatements().stream()
-                    .anyMatch(s -> !((s instanceof J.EnumValueSet)
+            Statement unsupported = block.getStatements().stream()
+                    .filter(s -> !((s instanceof J.EnumValueSet)
                             || (s instanceof J.VariableDeclarations)
                             || (s instanceof J.ClassDeclaration)
                             || (s instanceof J.MethodDeclaration)
-                            || (s instanceof J.Block)));
+                            || (s instanceof J.Block)))
+                    .findFirst()
+                    .orElse(null);
+
+            if (unsupported != null) {
+                if (sortViolations != null) {
+                    // Not checked, so never reported as sorted.
+                    return report(cd, cd.getSimpleName(), unsupported.getClass().getSimpleName(), "Unsupported", ctx);
+                }
 
-            if (anyUnsupportedStatements) {
-                throw new UnsupportedOperationException("Class contains an unsupported Statement type.");
+                if (unsupportedStatements == null) {
+                    throw new UnsupportedOperationException("Class contains an unsupported Statement type.");
+                }
+
+                SourceFile source = getCursor().firstEnclosing(SourceFile.class);
+                String sourcePath = source == null ? "" : source.getSourcePath().toString();
+                String statementKind = unsupported.getClass().getSimpleName();
+
+                logger.warn("Class skipped, unsupported statement found\nSource: {}\nClass: {}\nStatement: {}",
+                        sourcePath,
+                        cd.getSimpleName(),
+                        statementKind);
+
+                unsupportedStatements.insertRow(ctx, new UnsupportedClassStatements.Row(sourcePath, cd.getSimpleName(), statementKind));
+
+                // Unchanged but not sorted, the next run must report it again.
+                if (source != null) {
+                    IncrementalCache.exclude(ctx, source);
+                }
+
+                return cd;
             }
 
-            List<Pair<UUID, J.Block>> blocks = new ArrayList<>();
+            // Single pass: bucket the statements by kind.
+            J.Block leadingBlock = null;
+            Map<UUID, J.Block> blocksAfter = new HashMap<>();
+            List<J.EnumValueSet> enumValueSets = new ArrayList<>();
+            List<J.VariableDeclarations> variables = new ArrayList<>();
+            List<J.MethodDeclaration> methods = new ArrayList<>();
+            List<J.ClassDeclaration> classDeclarations = new ArrayList<>();
+
+            // Track whether the kinds already appear in the combined order: enums, variables, methods, classes.
+            boolean sorted = true;
+            int previousKind = 0;
 
-            int idx = 0;
+            // First pair found out of order, only tracked in check only mode.
+            Statement[] violation = null;
+            Statement previousMember = null;
+
+            Statement previous = null;
             for (Statement s: block.getStatements()) {
+                int kind;
+
                 if (s instanceof J.Block) {
-                    if (idx > 0) {
-                        blocks.add(Pair.of(block.getStatements().get(idx - 1).getId(), (J.Block) s));
+                    // Each statement has at most one block directly after it, consecutive blocks form a chain.
+                    if (previous == null) {
+                        leadingBlock = (J.Block) s;
+                    } else {
+                        blocksAfter.put(previous.getId(), (J.Block) s);
                     }
+
+                    previous = s;
+                    continue;
+                } else if (s instanceof J.EnumValueSet) {
+                    enumValueSets.add((J.EnumValueSet) s);
+                    kind = 0;
+                } else if (s instanceof J.VariableDeclarations) {
+                    variables.add((J.VariableDeclarations) s);
+                    kind = 1;
+                } else if (s instanceof J.MethodDeclaration) {
+                    methods.add((J.MethodDeclaration) s);
+                    kind = 2;
+                } else {
+                    classDeclarations.add((J.ClassDeclaration) s);
+                    kind = 3;
                 }
 
-                idx++;
-            }
+                if (kind < previousKind) {
+                    sorted = false;
 
-            List<Statement> enumValueSets = block.getStatements().stream()
-                    .filter(s -> s instanceof J.EnumValueSet)
-                    .toList();
+                    if (violation == null) {
+                        violation = new Statement[]{previousMember, s};
+                    }
+                }
 
-            List<Statement> sortedEnumValueSets = enumValueSets.stream()
-                    .map(v -> {
-                        J.EnumValueSet vd = (J.EnumValueSet) v;
+                previousKind = kind;
+                previous = s;
+                previousMember = s;
+            }
 
-                        vd.getEnums().sort((ae, be) -> StringUtils.compareIgnoreCase(ae.getName().getSimpleName(), be.getName().getSimpleName()));
+            // The same predicates decide the fast path and, in check only mode, report the first violation.
+            if (violation != null && sortViolations != null) {
+                return report(cd, describe(violation[0]), describe(violation[1]), ctx);
+            }
 
-                        return vd;
-                    })
-                    .collect(Collectors.toList());
+            // Field initializers reading sibling fields constrain the field order.
+            FieldReferenceIndex references = FieldReferenceIndex.build(variables);
 
-            List<Statement> variables = block.getStatements().stream()
-                    .filter(s -> s instanceof J.VariableDeclarations)
-                    .toList();
-            
-            Set<String> variableNames = variables.stream()
-                    .flatMap(v -> ((J.VariableDeclarations) v).getVariables().stream())
-                    .map(v -> StringUtils.upperCase(v.getSimpleName()))
-                    .collect(Collectors.toSet());
+            AccessorIndex accessors = new AccessorIndex();
+            List<Pair<MemberSortKey, Statement>> keyedVariables = new ArrayList<>(variables.size());
+            for (J.VariableDeclarations vd: variables) {
+                List<J.VariableDeclarations.NamedVariable> namedVariables = vd.getVariables();
+                int i = references.isSelfReferencing(vd) ? -1 : firstUnsorted(namedVariables, VARIABLE_ORDER);
 
-            List<Statement> sortedVariables = variables.stream()
-                    .map(v -> {
-                        J.VariableDeclarations vd = (J.VariableDeclarations) v;
+                if (i > 0) {
+                    if (sortViolations != null) {
+                        return report(cd, namedVariables.get(i - 1).getSimpleName(), namedVariables.get(i).getSimpleName(), ctx);
+                    }
 
-                        vd.getVariables().sort((anv, bnv) -> StringUtils.compareIgnoreCase(anv.getSimpleName(), bnv.getSimpleName()));
+                    vd = vd.withVariables(sortedCopy(namedVariables, VARIABLE_ORDER));
+                    sorted = false;
+                }
 
-                        return vd;
-                    })
-                    .sorted((avd, bvd) -> {
-                        // Static first.
-                        boolean aStatic = isStatic(avd);
-                        boolean bStatic = isStatic(bvd);
+                for (J.VariableDeclarations.NamedVariable nv: vd.getVariables()) {
+                    accessors.addField(nv.getSimpleName());
+                }
 
-                        if (aStatic != bStatic) {
-                            return (aStatic) ? -1 : 1;
-                        }
+                keyedVariables.add(Pair.of(sortKey(vd), vd));
+            }
 
-                        // Final next.
-                        boolean aFinal = isFinal(avd);
-                        boolean bFinal = isFinal(bvd);
+            if (!isSorted(keyedVariables, Map.Entry.comparingByKey()) || !references.isSatisfiedBy(keyedVariables)) {
+                List<Pair<MemberSortKey, Statement>> expected = new ArrayList<>(keyedVariables);
+                expected.sort(Map.Entry.comparingByKey());
+                expected = references.order(expected);
 
-                        if (aFinal != bFinal) {
-                            return (aFinal) ? -1 : 1;
+                if (sortViolations != null) {
+                    for (int i = 0; i < expected.size(); i++) {
+                        if (expected.get(i).getValue() != keyedVariables.get(i).getValue()) {
+                            // The second one is found later, but belongs before the first one.
+                            return report(cd, describe(keyedVariables.get(i).getValue()), describe(expected.get(i).getValue()), ctx);
                         }
+                    }
+                }
 
-                        // High priority annotations.
-                        int aAnnotations = hasHigherPriorityAnnotations(avd);
-                        int bAnnotations = hasHigherPriorityAnnotations(bvd);
+                keyedVariables = expected;
+                sorted = false;
+            }
 
-                        if (aAnnotations != bAnnotations) {
-                            return (aAnnotations > bAnnotations) ? -1 : 1;
-                        }
+            List<Pair<MemberSortKey, Statement>> keyedMethods = sortKeys(methods, accessors);
+            int i = firstUnsorted(keyedMethods, Map.Entry.comparingByKey());
 
-                        // Public, protected, private.
-                        int aAccess = getAccessLevel(avd);
-                        int bAccess = getAccessLevel(bvd);
+            if (i > 0) {
+                if (sortViolations != null) {
+                    return report(cd, describe(keyedMethods.get(i - 1).getValue()), describe(keyedMethods.get(i).getValue()), ctx);
+                }
 
-                        if (aAccess != bAccess) {
-                            return (aAccess > bAccess) ? -1 : 1;
-                        }
+                keyedMethods.sort(Map.Entry.comparingByKey());
+                sorted = false;
+            }
 
-                        String aname = avd.getVariables().stream()
-                                .map(J.VariableDeclarations.NamedVariable::getSimpleName)
-                                .collect(Collectors.joining(","));
-                        String bname = bvd.getVariables().stream()
-                                .map(J.VariableDeclarations.NamedVariable::getSimpleName)
-                                .collect(Collectors.joining(","));
-
-                        return StringUtils.compareIgnoreCase(aname, bname);
-                    })
-                    .collect(Collectors.toList());
-
-            List<Statement> methods = block.getStatements().stream()
-                    .filter(s -> s instanceof J.MethodDeclaration)
-                    .toList();
-
-            List<Statement> sortedMethods = methods.stream()
-                    .sorted((a, b) -> {
-                        J.MethodDeclaration amd = (J.MethodDeclaration) a;
-                        J.MethodDeclaration bmd = (J.MethodDeclaration) b;
-
-                        // Constructors first.
-                        boolean isAConstructor = Objects.requireNonNull(amd.getMethodType()).isConstructor();
-                        boolean isBConstructor = Objects.requireNonNull(bmd.getMethodType()).isConstructor();
-
-                        if (isAConstructor != isBConstructor) {
-                            if (isAConstructor) { return -1; }
-                            return 1;
-                        }
+            List<Pair<MemberSortKey, Statement>> keyedClassDeclarations = new ArrayList<>(classDeclarations.size());
+            for (J.ClassDeclaration c: classDeclarations) {
+                // Compare name only.
+                keyedClassDeclarations.add(Pair.of(MemberSortKey.of(0, c.getName().getSimpleName()), c));
+            }
 
-                        // High priority annotations.
-                        int aAnnotations = hasHigherPriorityAnnotations(amd);
-                        int bAnnotations = hasHigherPriorityAnnotations(bmd);
+            i = firstUnsorted(keyedClassDeclarations, Map.Entry.comparingByKey());
 
-                        if (aAnnotations != bAnnotations) {
-                            return (aAnnotations > bAnnotations) ? -1 : 1;
-                        }
+            if (i > 0) {
+                if (sortViolations != null) {
+                    return report(cd, describe(keyedClassDeclarations.get(i - 1).getValue()),
+                            describe(keyedClassDeclarations.get(i).getValue()), ctx);
+                }
 
-                        // Static first.
-                        boolean aStatic = isStatic(amd);
-                        boolean bStatic = isStatic(bmd);
+                keyedClassDeclarations.sort(Map.Entry.comparingByKey());
+                sorted = false;
+            }
 
-                        if (aStatic != bStatic) {
-                            return (aStatic) ? -1 : 1;
-                        }
+            // Already in canonical order, keep the original tree.
+            if (sorted) {
+                return cd;
+            }
 
-                        // Final next.
-                        boolean aFinal = isFinal(amd);
-                        boolean bFinal = isFinal(bmd);
+            // Single merge pass, putting back the blocks immediately after the statements they were originally found after.
+            List<Statement> combined = new ArrayList<>(block.getStatements().size());
 
-                        if (aFinal != bFinal) {
-                            return (aFinal) ? -1 : 1;
-                        }
+            if (leadingBlock != null) {
+                appendWithBlocks(combined, leadingBlock, blocksAfter);
+            }
 
-                        // Public, protected, private.
-                        int aAccess = getAccessLevel(amd);
-                        int bAccess = getAccessLevel(bmd);
+            // Enum constants keep their source order, reordering them changes ordinal() and values().
+            for (Statement s: enumValueSets) {
+                appendWithBlocks(combined, s, blocksAfter);
+            }
 
-                        if (aAccess != bAccess) {
-                            return (aAccess > bAccess) ? -1 : 1;
-                        }
+            for (Pair<MemberSortKey, Statement> p: keyedVariables) {
+                appendWithBlocks(combined, p.getValue(), blocksAfter);
+            }
 
-                        // Compare name, with additional support for getters/setters to keep them together.
-                        String aname = normalizeMethodNames(amd.getName().getSimpleName(), variableNames);
-                        String bname = normalizeMethodNames(bmd.getName().getSimpleName(), variableNames);
-
-                        return StringUtils.compareIgnoreCase(aname, bname);
-                    })
-                    .toList();
-
-            List<Statement> classDeclarations = block.getStatements().stream()
-                    .filter(s -> s instanceof J.ClassDeclaration)
-                    .toList();
-
-            List<Statement> sortedClassDeclarations = classDeclarations.stream()
-                    .sorted((a, b) -> {
-                        J.ClassDeclaration acd = (J.ClassDeclaration) a;
-                        J.ClassDeclaration bcd = (J.ClassDeclaration) b;
-
-                        // Compare name;
-                        String aname = acd.getName().getSimpleName();
-                        String bname = bcd.getName().getSimpleName();
-
-                        return StringUtils.compareIgnoreCase(aname, bname);
-                    })
-                    .toList();
-
-            List<Statement> combined = new ArrayList<>(
-                    sortedEnumValueSets.size() +
-                            sortedVariables.size() +
-                            sortedMethods.size() +
-                            sortedClassDeclarations.size() +
-                            blocks.size());
-
-            combined.addAll(sortedEnumValueSets);
-            combined.addAll(sortedVariables);
-            combined.addAll(sortedMethods);
-            combined.addAll(sortedClassDeclarations);
-
-            if (CollectionUtils.isNotEmpty(blocks)) {
-                // Put back the static blocks immediately after the ids they were originally found after.
-                for (Pair<UUID, J.Block> p: blocks) {
-                    for (int i = 0; i < combined.size(); i++) {
-                        if (combined.get(i).getId().equals(p.getKey())) {
-                            combined.add(i + 1, p.getValue());
-                            break;
-                        }
-                    }
-                }
+            for (Pair<MemberSortKey, Statement> p: keyedMethods) {
+                appendWithBlocks(combined, p.getValue(), blocksAfter);
+            }
+
+            for (Pair<MemberSortKey, Statement> p: keyedClassDeclarations) {
+                appendWithBlocks(combined, p.getValue(), blocksAfter);
             }
 
             block = block.withStatements(combined);
@@ -255,130 +469,130 @@ public class JavaMethodSorter extends Recipe {
             return cd;
         }
 
-        private boolean isStatic (J.VariableDeclarations vd) {
-            return vd.getModifiers().stream()
-                    .anyMatch(m -> m.getType() == J.Modifier.Type.Static);
+        private J.ClassDeclaration report(J.ClassDeclaration cd, String first, String second, ExecutionContext ctx) {
+            return report(cd, cd.getSimpleName() + "." + first, cd.getSimpleName() + "." + second, "Out of order", ctx);
         }
 
-        private boolean isFinal (J.VariableDeclarations vd) {
-            return vd.getModifiers().stream()
-                    .anyMatch(m -> m.getType() == J.Modifier.Type.Final);
+        private J.ClassDeclaration report(J.ClassDeclaration cd, String first, String second, String reason, ExecutionContext ctx) {
+            SourceFile source = getCursor().firstEnclosing(SourceFile.class);
+            String sourcePath = source == null ? "" : source.getSourcePath().toString();
+
+            sortViolations.insertRow(ctx, new SortViolations.Row(sourcePath, first, second, reason));
+            violationFound = true;
+
+            return cd;
         }
 
-        private int getAccessLevel(J.VariableDeclarations vd) {
-            if (isPrivate(vd)) {
-                return 3;
+        private static String describe(Statement s) {
+            if (s instanceof J.MethodDeclaration) {
+                return ((J.MethodDeclaration) s).getSimpleName() + "()";
             }
 
-            if (isProtected(vd)) {
-                return 2;
-            }
+            if (s instanceof J.VariableDeclarations) {
+                StringJoiner names = new StringJoiner(",");
+                for (J.VariableDeclarations.NamedVariable nv: ((J.VariableDeclarations) s).getVariables()) {
+                    names.add(nv.getSimpleName());
+                }
 
-            if (isPublic(vd)) {
-                return 1;
+                return names.toString();
             }
 
-            return 0;
-        }
+            if (s instanceof J.EnumValueSet) {
+                return ((J.EnumValueSet) s).getEnums().get(0).getName().getSimpleName();
+            }
 
-        private boolean isPrivate (J.VariableDeclarations vd) {
-            return vd.getModifiers().stream()
-                    .anyMatch(m -> m.getType() == J.Modifier.Type.Private);
+            return ((J.ClassDeclaration) s).getSimpleName();
         }
 
-        private boolean isProtected (J.VariableDeclarations vd) {
-            return vd.getModifiers().stream()
-                    .anyMatch(m -> m.getType() == J.Modifier.Type.Protected);
-        }
+        /**
+         * Index of the first element that sorts before the element preceding it, -1 when sorted.
+         */
+        private static <T> int firstUnsorted(List<T> list, Comparator<? super T> comparator) {
+            for (int i = 1; i < list.size(); i++) {
+                if (comparator.compare(list.get(i - 1), list.get(i)) > 0) {
+                    return i;
+                }
+            }
 
-        private boolean isPublic (J.VariableDeclarations vd) {
-            return vd.getModifiers().stream()
-                    .anyMatch(m -> m.getType() == J.Modifier.Type.Public);
+            return -1;
         }
 
-        private int hasHigherPriorityAnnotations(J.VariableDeclarations vd) {
-            Set<String> annotations = vd.getLeadingAnnotations().stream()
-                    .map(J.Annotation::getSimpleName)
-                    .collect(Collectors.toSet());
+        /**
+         * A sorted copy where each position keeps its original prefix.
+         */
+        private static <T extends J> List<T> sortedCopy(List<T> list, Comparator<? super T> comparator) {
+            List<T> sorted = new ArrayList<>(list);
+            sorted.sort(comparator);
 
-            // JUnit 5
-            if (CollectionUtils.containsAny(annotations,"Mock")) {
-                return 100;
+            for (int i = 0; i < sorted.size(); i++) {
+                sorted.set(i, sorted.get(i).withPrefix(list.get(i).getPrefix()));
             }
 
-            return 0;
+            return sorted;
         }
 
-        private boolean isStatic (J.MethodDeclaration vd) {
-            return vd.getModifiers().stream()
-                    .anyMatch(m -> m.getType() == J.Modifier.Type.Static);
+        private static <T> boolean isSorted(List<T> list, Comparator<? super T> comparator) {
+            return firstUnsorted(list, comparator) < 0;
         }
 
-        private boolean isFinal (J.MethodDeclaration vd) {
-            return vd.getModifiers().stream()
-                    .anyMatch(m -> m.getType() == J.Modifier.Type.Final);
+        private void appendWithBlocks(List<Statement> combined, Statement s, Map<UUID, J.Block> blocksAfter) {
+            for (Statement next = s; next != null; next = blocksAfter.get(next.getId())) {
+                combined.add(next);
+            }
         }
 
-        private int getAccessLevel(J.MethodDeclaration vd) {
-            if (isPrivate(vd)) {
-                return 0;
+        private MemberSortKey sortKey(J.VariableDeclarations vd) {
+            StringJoiner name = new StringJoiner(",");
+            for (J.VariableDeclarations.NamedVariable nv: vd.getVariables()) {
+                name.add(nv.getSimpleName());
             }
 
-            if (isProtected(vd)) {
-                return 50;
-            }
+            return MemberSortKey.of(ordering.fieldRank(vd), name.toString());
+        }
+
+        /**
+         * Keys the methods by rank and sort name. With accessor grouping, accessors of the same field and overloads
+         * stay adjacent, each group is ranked by the highest ranked method in it. Constructors are never grouped.
+         */
+        private List<Pair<MemberSortKey, Statement>> sortKeys(List<J.MethodDeclaration> methods, AccessorIndex accessors) {
+            List<Pair<MemberSortKey, Statement>> keyed = new ArrayList<>(methods.size());
+
+            if (!ordering.isGroupAccessors()) {
+                for (J.MethodDeclaration md: methods) {
+                    String name = md.isConstructor()
+                            ? KeyCollation.fold(md.getName().getSimpleName())
+                            : accessors.sortName(md.getName().getSimpleName());
 
-            if (isPublic(vd)) {
-                return 100;
+                    keyed.add(Pair.of(MemberSortKey.ofFolded(ordering.methodRank(md), name), md));
+                }
+
+                return keyed;
             }
 
-            return 100; // Default as public.
-        }
+            long[] ranks = new long[methods.size()];
+            String[] names = new String[methods.size()];
+            Map<String, Long> groupRanks = new HashMap<>();
 
-        private boolean isPrivate (J.MethodDeclaration vd) {
-            return vd.getModifiers().stream()
-                    .anyMatch(m -> m.getType() == J.Modifier.Type.Private);
-        }
+            for (int i = 0; i < ranks.length; i++) {
+                J.MethodDeclaration md = methods.get(i);
 
-        private boolean isProtected (J.MethodDeclaration vd) {
-            return vd.getModifiers().stream()
-                    .anyMatch(m -> m.getType() == J.Modifier.Type.Protected);
-        }
+                ranks[i] = ordering.methodRank(md);
 
-        private boolean isPublic (J.MethodDeclaration vd) {
-            return vd.getModifiers().stream()
-                    .anyMatch(m -> m.getType() == J.Modifier.Type.Public);
-        }
-        
-        private int hasHigherPriorityAnnotations(J.MethodDeclaration vd) {
-            Set<String> annotations = vd.getLeadingAnnotations().stream()
-                    .map(J.Annotation::getSimpleName)
-                    .collect(Collectors.toSet());
-
-            // JUnit 5
-            if (CollectionUtils.containsAny(annotations,"Before", "BeforeClass", "BeforeEach", "BeforeAll")) {
-                return 100;
-            }
-            if (CollectionUtils.containsAny(annotations,"After", "AfterClass", "AfterEach", "AfterAll")) {
-                return 99;
+                if (md.isConstructor()) {
+                    names[i] = KeyCollation.fold(md.getName().getSimpleName());
+                } else {
+                    names[i] = accessors.groupKey(md.getName().getSimpleName());
+                    groupRanks.merge(AccessorIndex.group(names[i]), ranks[i], Math::min);
+                }
             }
-            
-            return 0;
-        }
 
-        private String normalizeMethodNames(String name, Set<String> variableSet) {
-            String upperName = StringUtils.upperCase(name);
-            if (StringUtils.startsWithAny(upperName, "GET", "SET")) {
-                String candidateVarName = upperName.substring(3);
+            for (int i = 0; i < ranks.length; i++) {
+                long rank = methods.get(i).isConstructor() ? ranks[i] : groupRanks.get(AccessorIndex.group(names[i]));
 
-                if (variableSet.contains(candidateVarName)) {
-                    // Is a getter/setter.
-                    // Normalize to variable name + G/S.
-                    return candidateVarName + upperName.charAt(0);
-                }
+                keyed.add(Pair.of(MemberSortKey.ofFolded(rank, names[i]), methods.get(i)));
             }
 
-            return name;
+            return keyed;
         }
     }
 }
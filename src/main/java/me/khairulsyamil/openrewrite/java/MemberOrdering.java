@@ -0,0 +1,219 @@
+package me.khairulsyamil.openrewrite.java;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.tree.J;
+
+import java.util.*;
+
+/**
+ * Member ordering rules of {@link JavaMethodSorter}, compiled once from the recipe options.
+ * <p>
+ * The precedence lists become criteria vectors and the annotation priority lists become
+ * annotation name to rank maps, so ranking a member is one pass over its modifiers and annotations.
+ * When accessor grouping is on, accessors of a field and overloads are ranked by the best ranked member of
+ * their group, so they stay adjacent.
+ */
+public final class MemberOrdering {
+    public enum Criterion {
+        CONSTRUCTOR,
+        ANNOTATION,
+        STATIC,
+        FINAL,
+        ACCESS
+    }
+
+    public static final List<String> DEFAULT_METHOD_ORDER = List.of("constructor", "annotation", "static", "final", "access");
+    public static final List<String> DEFAULT_FIELD_ORDER = List.of("static", "final", "annotation", "access");
+
+    // JUnit 5
+    public static final List<String> DEFAULT_METHOD_ANNOTATIONS = List.of(
+            "Before|BeforeClass|BeforeEach|BeforeAll",
+            "After|AfterClass|AfterEach|AfterAll");
+    public static final List<String> DEFAULT_FIELD_ANNOTATIONS = List.of("Mock");
+
+    public static final MemberOrdering DEFAULT = compile(null, null, null, null, false);
+
+    private static final int STATIC = 1;
+    private static final int FINAL = 1 << 1;
+    private static final int PRIVATE = 1 << 2;
+    private static final int PROTECTED = 1 << 3;
+    private static final int PUBLIC = 1 << 4;
+
+    private final Criterion[] methodCriteria;
+    private final Criterion[] fieldCriteria;
+    private final Map<String, Integer> methodAnnotationRanks;
+    private final Map<String, Integer> fieldAnnotationRanks;
+    private final boolean groupAccessors;
+
+    private MemberOrdering(Criterion[] methodCriteria,
+                           Criterion[] fieldCriteria,
+                           Map<String, Integer> methodAnnotationRanks,
+                           Map<String, Integer> fieldAnnotationRanks,
+                           boolean groupAccessors) {
+        this.methodCriteria = methodCriteria;
+        this.fieldCriteria = fieldCriteria;
+        this.methodAnnotationRanks = methodAnnotationRanks;
+        this.fieldAnnotationRanks = fieldAnnotationRanks;
+        this.groupAccessors = groupAccessors;
+    }
+
+    /**
+     * Compiles the ordering options, any null option falls back to its default.
+     *
+     * @throws IllegalArgumentException when a precedence list contains an unknown criterion.
+     */
+    public static MemberOrdering compile(@Nullable List<String> methodOrder,
+                                         @Nullable List<String> fieldOrder,
+                                         @Nullable List<String> methodAnnotations,
+                                         @Nullable List<String> fieldAnnotations,
+                                         boolean groupAccessors) {
+        return new MemberOrdering(
+                criteria(methodOrder == null ? DEFAULT_METHOD_ORDER : methodOrder),
+                criteria(fieldOrder == null ? DEFAULT_FIELD_ORDER : fieldOrder),
+                annotationRanks(methodAnnotations == null ? DEFAULT_METHOD_ANNOTATIONS : methodAnnotations),
+                annotationRanks(fieldAnnotations == null ? DEFAULT_FIELD_ANNOTATIONS : fieldAnnotations),
+                groupAccessors);
+    }
+
+    /**
+     * @throws IllegalArgumentException when the precedence list contains an unknown criterion.
+     */
+    static Criterion[] criteria(List<String> order) {
+        Criterion[] criteria = new Criterion[order.size()];
+
+        for (int i = 0; i < criteria.length; i++) {
+            String name = StringUtils.trimToEmpty(order.get(i));
+
+            try {
+                criteria[i] = Criterion.valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown member ordering criterion: " + name, e);
+            }
+        }
+
+        return criteria;
+    }
+
+    private static Map<String, Integer> annotationRanks(List<String> groups) {
+        Map<String, Integer> ranks = new HashMap<>();
+
+        // Earlier groups sort first, names within a group share the same rank.
+        for (int i = 0; i < groups.size(); i++) {
+            for (String name: StringUtils.split(StringUtils.defaultString(groups.get(i)), '|')) {
+                ranks.putIfAbsent(StringUtils.removeStart(name.trim(), "@"), i);
+            }
+        }
+
+        return ranks;
+    }
+
+    boolean isGroupAccessors() {
+        return groupAccessors;
+    }
+
+    /**
+     * Packed rank of a field declaration, lower ranks sort first.
+     */
+    long fieldRank(J.VariableDeclarations vd) {
+        int modifiers = modifierMask(vd.getModifiers());
+        long rank = 0;
+
+        for (Criterion c: fieldCriteria) {
+            rank = MemberSortKey.pack(rank, switch (c) {
+                // Fields are never constructors.
+                case CONSTRUCTOR -> 1;
+                case ANNOTATION -> annotationRank(vd.getLeadingAnnotations(), fieldAnnotationRanks);
+                case STATIC -> (modifiers & STATIC) != 0 ? 0 : 1;
+                case FINAL -> (modifiers & FINAL) != 0 ? 0 : 1;
+                case ACCESS -> fieldAccessRank(modifiers);
+            });
+        }
+
+        return rank;
+    }
+
+    /**
+     * Packed rank of a method declaration, lower ranks sort first.
+     */
+    long methodRank(J.MethodDeclaration md) {
+        int modifiers = modifierMask(md.getModifiers());
+        long rank = 0;
+
+        for (Criterion c: methodCriteria) {
+            rank = MemberSortKey.pack(rank, switch (c) {
+                // Syntactic check on the missing return type, so sources parsed without type attribution work too.
+                case CONSTRUCTOR -> md.isConstructor() ? 0 : 1;
+                case ANNOTATION -> annotationRank(md.getLeadingAnnotations(), methodAnnotationRanks);
+                case STATIC -> (modifiers & STATIC) != 0 ? 0 : 1;
+                case FINAL -> (modifiers & FINAL) != 0 ? 0 : 1;
+                case ACCESS -> methodAccessRank(modifiers);
+            });
+        }
+
+        return rank;
+    }
+
+    private int annotationRank(List<J.Annotation> annotations, Map<String, Integer> ranks) {
+        // Members without a listed annotation sort after every listed group.
+        int rank = MemberSortKey.SLOT_MAX;
+
+        for (J.Annotation a: annotations) {
+            Integer r = ranks.get(a.getSimpleName());
+
+            if (r != null && r < rank) {
+                rank = r;
+            }
+        }
+
+        return rank;
+    }
+
+    private int modifierMask(List<J.Modifier> modifiers) {
+        int mask = 0;
+
+        for (J.Modifier m: modifiers) {
+            switch (m.getType()) {
+                case Static -> mask |= STATIC;
+                case Final -> mask |= FINAL;
+                case Private -> mask |= PRIVATE;
+                case Protected -> mask |= PROTECTED;
+                case Public -> mask |= PUBLIC;
+                default -> {
+                }
+            }
+        }
+
+        return mask;
+    }
+
+    // Private, protected, public, package.
+    private int fieldAccessRank(int modifiers) {
+        if ((modifiers & PRIVATE) != 0) {
+            return 0;
+        }
+
+        if ((modifiers & PROTECTED) != 0) {
+            return 1;
+        }
+
+        if ((modifiers & PUBLIC) != 0) {
+            return 2;
+        }
+
+        return 3;
+    }
+
+    // Public and package, protected, private.
+    private int methodAccessRank(int modifiers) {
+        if ((modifiers & PRIVATE) != 0) {
+            return 2;
+        }
+
+        if ((modifiers & PROTECTED) != 0) {
+            return 1;
+        }
+
+        return 0;
+    }
+}
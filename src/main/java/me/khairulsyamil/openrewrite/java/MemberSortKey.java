@@ -0,0 +1,85 @@
+package me.khairulsyamil.openrewrite.java;
+
+import me.khairulsyamil.openrewrite.KeyCollation;
+import org.openrewrite.internal.lang.NonNull;
+
+/**
+ * Immutable ordering key of a class member, computed once before sorting.
+ * <p>
+ * The ordering criteria (constructor, annotations, modifiers, access) are packed into a single
+ * {@code long} where a lower value sorts first, followed by a case folded name used as the tie-breaker.
+ */
+final class MemberSortKey implements Comparable<MemberSortKey> {
+    private static final int SLOT_BITS = 8;
+    static final int SLOT_MAX = (1 << SLOT_BITS) - 1;
+
+    private final long rank;
+    private final String name;
+
+    private MemberSortKey(long rank, String name) {
+        this.rank = rank;
+        this.name = name;
+    }
+
+    static MemberSortKey of(long rank, String name) {
+        return new MemberSortKey(rank, KeyCollation.fold(name));
+    }
+
+    /**
+     * Creates a key from a name that was already folded with {@link KeyCollation#fold(String)}.
+     */
+    static MemberSortKey ofFolded(long rank, String foldedName) {
+        return new MemberSortKey(rank, foldedName);
+    }
+
+    /**
+     * Appends a criterion to a packed rank. Values are clamped to a single slot, lower values sort first.
+     */
+    static long pack(long rank, int value) {
+        return (rank << SLOT_BITS) | Math.max(0, Math.min(SLOT_MAX, value));
+    }
+
+    long getRank() {
+        return rank;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    @Override
+    public int compareTo(@NonNull MemberSortKey o) {
+        int c = Long.compare(rank, o.rank);
+
+        if (c != 0) {
+            return c;
+        }
+
+        return name.compareTo(o.name);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof MemberSortKey)) {
+            return false;
+        }
+
+        MemberSortKey that = (MemberSortKey) o;
+
+        return rank == that.rank && name.equals(that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(rank) + name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "MemberSortKey{rank=" + Long.toHexString(rank) + ", name=" + name + "}";
+    }
+}
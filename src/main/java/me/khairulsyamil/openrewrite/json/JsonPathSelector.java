@@ -0,0 +1,155 @@
+package me.khairulsyamil.openrewrite.json;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A JSONPath-style selector limited to child steps, compiled once into its segments.
+ * <p>
+ * Supports {@code $}, {@code .name}, {@code ['name']} for names containing dots, {@code [0]} for array indices
+ * and {@code *} or {@code [*]} for any member or element, for example {@code $.locales.*} or {@code $['app.messages']}.
+ * The selected nodes and everything below them are in scope.
+ */
+final class JsonPathSelector {
+    static final String WILDCARD = "*";
+
+    enum Match {
+        // Neither the node nor anything below it is selected.
+        NONE,
+        // Something below the node is selected.
+        ANCESTOR,
+        // The node is selected, or is below a selected node.
+        SELECTED
+    }
+
+    private final String path;
+    private final List<String> segments;
+
+    private JsonPathSelector(String path, List<String> segments) {
+        this.path = path;
+        this.segments = segments;
+    }
+
+    /**
+     * @return the compiled selectors, empty when no selector is given which selects everything.
+     * @throws IllegalArgumentException on a selector that is not a supported path.
+     */
+    static List<JsonPathSelector> compile(@Nullable List<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<JsonPathSelector> selectors = new ArrayList<>(paths.size());
+
+        for (String path: paths) {
+            if (StringUtils.isNotBlank(path)) {
+                selectors.add(compile(path.trim()));
+            }
+        }
+
+        return selectors;
+    }
+
+    static JsonPathSelector compile(String path) {
+        if (!path.startsWith("$")) {
+            throw new IllegalArgumentException("JSON path must start with '$': " + path);
+        }
+
+        List<String> segments = new ArrayList<>();
+        int i = 1;
+
+        while (i < path.length()) {
+            char c = path.charAt(i);
+
+            if (c == '.') {
+                int end = i + 1;
+
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+
+                if (end == i + 1) {
+                    throw new IllegalArgumentException("Empty JSON path segment at " + i + ": " + path);
+                }
+
+                segments.add(path.substring(i + 1, end));
+                i = end;
+
+            } else if (c == '[') {
+                int end = path.indexOf(']', i);
+
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed '[' at " + i + ": " + path);
+                }
+
+                String segment = path.substring(i + 1, end).trim();
+
+                if (segment.length() >= 2 && (segment.charAt(0) == '\'' || segment.charAt(0) == '"')
+                        && segment.charAt(segment.length() - 1) == segment.charAt(0)) {
+                    segment = segment.substring(1, segment.length() - 1);
+                } else if (!WILDCARD.equals(segment) && !StringUtils.isNumeric(segment)) {
+                    throw new IllegalArgumentException("Unsupported JSON path segment '" + segment + "': " + path);
+                }
+
+                segments.add(segment);
+                i = end + 1;
+
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + c + "' at " + i + ": " + path);
+            }
+        }
+
+        return new JsonPathSelector(path, segments);
+    }
+
+    /**
+     * Matches the path of a node, its member names and array indices from the document root.
+     */
+    Match match(List<String> nodePath) {
+        int common = Math.min(segments.size(), nodePath.size());
+
+        for (int i = 0; i < common; i++) {
+            String segment = segments.get(i);
+
+            if (!WILDCARD.equals(segment) && !segment.equals(nodePath.get(i))) {
+                return Match.NONE;
+            }
+        }
+
+        return nodePath.size() >= segments.size() ? Match.SELECTED : Match.ANCESTOR;
+    }
+
+    /**
+     * The best match of any selector, everything is selected when there are no selectors.
+     */
+    static Match match(List<JsonPathSelector> selectors, List<String> nodePath) {
+        if (selectors.isEmpty()) {
+            return Match.SELECTED;
+        }
+
+        Match best = Match.NONE;
+
+        for (JsonPathSelector selector: selectors) {
+            Match match = selector.match(nodePath);
+
+            if (match == Match.SELECTED) {
+                return match;
+            }
+
+            if (match == Match.ANCESTOR) {
+                best = match;
+            }
+        }
+
+        return best;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
@@ -1,13 +1,22 @@
 package me.khairulsyamil.openrewrite.json;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import me.khairulsyamil.openrewrite.FileGlob;
+import me.khairulsyamil.openrewrite.IncrementalCache;
+import me.khairulsyamil.openrewrite.KeyCollation;
+import me.khairulsyamil.openrewrite.SortedSourceMemo;
+import me.khairulsyamil.openrewrite.table.SortViolations;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.openrewrite.ExecutionContext;
 import org.openrewrite.Option;
-import org.openrewrite.PathUtils;
-import org.openrewrite.Recipe;
+import org.openrewrite.ScanningRecipe;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.Validated;
+import org.openrewrite.internal.ListUtils;
 import org.openrewrite.internal.lang.NonNull;
 import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.json.JsonIsoVisitor;
@@ -15,10 +24,11 @@ import org.openrewrite.json.tree.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Collectors;
 
-public class JsonSorter extends Recipe {
+public class JsonSorter extends ScanningRecipe<IncrementalCache.Visits> {
     @Option(displayName = "File pattern",
             description = "A glob expression representing a file path to search for (relative to the project root). Blank/null matches all.",
             required = false,
@@ -26,11 +36,82 @@ public class JsonSorter extends Recipe {
     @Nullable
     String filePattern;
 
+    @Option(displayName = "Cache file",
+            description = "Enables incremental mode. A local file recording the content hashes of sources already verified as sorted, those sources are not checked again on later runs. Sources are still parsed and printed to be hashed, so only the sortedness check is saved. Blank/null disables the cache.",
+            required = false,
+            example = "target/rewrite-sorter.cache")
+    @Nullable
+    String cacheFile;
+
+    @Option(displayName = "Array key path",
+            description = "Sorts arrays whose elements are all objects by the value found at this key path, segments separated by dots. Elements without the key keep their relative order after the others. Blank/null leaves arrays as is.",
+            required = false,
+            example = "meta.name")
+    @Nullable
+    String arrayKeyPath;
+
+    @Option(displayName = "Deduplicate array elements",
+            description = "Removes array elements whose key path value was already seen in the same array, keeping the first. Only applies when an array key path is set.",
+            required = false)
+    @Nullable
+    Boolean dedupeArrayElements;
+
+    @Option(displayName = "Sort paths",
+            description = "JSONPath-style selectors of the subtrees to sort, such as `$.messages` or `$.locales.*`. Subtrees that cannot match are not visited at all. Null/empty sorts the whole document.",
+            required = false,
+            example = "$.messages, $.locales.*")
+    @Nullable
+    List<String> sortPaths;
+
+    @Option(displayName = "Collation",
+            description = "Key ordering: `ignore-case`, `natural` (ignores case and compares numbers by value, so `label.9` sorts before `label.10`), `locale` or `locale:<language tag>` (a `java.text.Collator`). Blank/null is `ignore-case`.",
+            required = false,
+            example = "natural")
+    @Nullable
+    String collation;
+
+    @Option(displayName = "Check only",
+            description = "Only report the first pair of members or elements out of order in each file in a data table, without changing any file.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean checkOnly;
+
+    transient SortViolations sortViolations = new SortViolations(this);
+
+    @JsonIgnore
+    @Nullable
+    private transient FileGlob fileGlob;
+
+    @JsonIgnore
+    @Nullable
+    private transient KeyCollation keyCollation;
+
+    @JsonIgnore
+    @Nullable
+    private transient List<JsonPathSelector> selectors;
+
     private static final Logger logger = LoggerFactory.getLogger(JsonSorter.class);
 
+    public JsonSorter(@Nullable String filePattern) {
+        this(filePattern, null, null, null, null, null, null);
+    }
+
     @JsonCreator
-    public JsonSorter(@Nullable @JsonProperty("filePattern") String filePattern) {
+    public JsonSorter(@Nullable @JsonProperty("filePattern") String filePattern,
+                      @Nullable @JsonProperty("cacheFile") String cacheFile,
+                      @Nullable @JsonProperty("arrayKeyPath") String arrayKeyPath,
+                      @Nullable @JsonProperty("dedupeArrayElements") Boolean dedupeArrayElements,
+                      @Nullable @JsonProperty("sortPaths") List<String> sortPaths,
+                      @Nullable @JsonProperty("collation") String collation,
+                      @Nullable @JsonProperty("checkOnly") Boolean checkOnly) {
         this.filePattern = filePattern;
+        this.cacheFile = cacheFile;
+        this.arrayKeyPath = arrayKeyPath;
+        this.dedupeArrayElements = dedupeArrayElements;
+        this.sortPaths = sortPaths;
+        this.collation = collation;
+        this.checkOnly = checkOnly;
     }
 
     @Override
@@ -49,89 +130,345 @@ public class JsonSorter extends Recipe {
     }
 
     @Override
-    public boolean causesAnotherCycle() {
-        return true;
+    public @NonNull Validated<Object> validate() {
+        Validated<Object> validated = super.validate();
+
+        try {
+            getSelectors();
+        } catch (IllegalArgumentException e) {
+            validated = validated.and(Validated.invalid("sortPaths", sortPaths, e.getMessage(), e));
+        }
+
+        try {
+            getKeyCollation();
+        } catch (IllegalArgumentException e) {
+            validated = validated.and(Validated.invalid("collation", collation, e.getMessage(), e));
+        }
+
+        return validated;
     }
 
     @Override
-    public @NonNull JsonIsoVisitor<ExecutionContext> getVisitor() {
-        return new JsonSorterVisitor(filePattern);
+    public IncrementalCache.Visits getInitialValue(@NonNull ExecutionContext ctx) {
+        return new IncrementalCache.Visits();
+    }
+
+    @Override
+    public @NonNull TreeVisitor<?, ExecutionContext> getScanner(@NonNull IncrementalCache.Visits visits) {
+        // Only counts the sources, so the last one visited writes the cache file.
+        return IncrementalCache.countVisits(Boolean.TRUE.equals(checkOnly) ? null : cacheFile, visits, getVisitor(visits));
+    }
+
+    @Override
+    public @NonNull TreeVisitor<?, ExecutionContext> getVisitor(@NonNull IncrementalCache.Visits visits) {
+        if (Boolean.TRUE.equals(checkOnly)) {
+            // Never memoized nor cached, an unchanged source is not proof of a sorted one in this mode.
+            return getFileGlob().check(new JsonSorterVisitor(arrayKeyPath, Boolean.TRUE.equals(dedupeArrayElements),
+                    getSelectors(), getKeyCollation(), sortViolations));
+        }
+
+        // Non-matching files are rejected before the sorter visits them, sources found sorted are skipped in later cycles.
+        String key = "JsonSorter{filePattern=" + filePattern
+                + ", arrayKeyPath=" + arrayKeyPath
+                + ", dedupeArrayElements=" + dedupeArrayElements
+                + ", sortPaths=" + sortPaths
+                + ", collation=" + collation + "}";
+
+        JsonSorterVisitor visitor = new JsonSorterVisitor(arrayKeyPath, Boolean.TRUE.equals(dedupeArrayElements),
+                getSelectors(), getKeyCollation());
+
+        return IncrementalCache.flushAfterLastVisit(cacheFile, visits,
+                SortedSourceMemo.memoize(key, getFileGlob().check(IncrementalCache.wrap(cacheFile, key, visitor))));
+    }
+
+    private FileGlob getFileGlob() {
+        if (fileGlob == null) {
+            fileGlob = FileGlob.compile(filePattern);
+        }
+
+        return fileGlob;
+    }
+
+    private List<JsonPathSelector> getSelectors() {
+        if (selectors == null) {
+            selectors = JsonPathSelector.compile(sortPaths);
+        }
+
+        return selectors;
+    }
+
+    private KeyCollation getKeyCollation() {
+        if (keyCollation == null) {
+            keyCollation = KeyCollation.compile(collation);
+        }
+
+        return keyCollation;
     }
 
     public static class JsonSorterVisitor extends JsonIsoVisitor<ExecutionContext> {
-        private final String filePattern;
         private final Space beforeDelimiter = Space.build(" ", Collections.emptyList());
         private final Space lastMember = Space.build("\n", Collections.emptyList());
 
-        public JsonSorterVisitor(String filePattern) {
-            this.filePattern = filePattern;
+        // Structural hashes of the subtrees of the current document.
+        private final Map<Json, Long> hashes = new IdentityHashMap<>();
+
+        @Nullable
+        private final String arrayKeyPath;
+        private final boolean dedupeArrayElements;
+
+        // Empty selects the whole document.
+        private final List<JsonPathSelector> selectors;
+
+        private final KeyCollation collation;
+
+        // Member names and array indices from the root to the node being visited.
+        private final List<String> path = new ArrayList<>();
+
+        @Nullable
+        private final SortViolations sortViolations;
+
+        // Check only mode stops at the first violation of each document.
+        private boolean violationFound;
+
+        public JsonSorterVisitor() {
+            this(null, false);
+        }
+
+        public JsonSorterVisitor(@Nullable String arrayKeyPath, boolean dedupeArrayElements) {
+            this(arrayKeyPath, dedupeArrayElements, Collections.emptyList(), KeyCollation.IGNORE_CASE);
+        }
+
+        JsonSorterVisitor(@Nullable String arrayKeyPath,
+                          boolean dedupeArrayElements,
+                          List<JsonPathSelector> selectors,
+                          KeyCollation collation) {
+            this(arrayKeyPath, dedupeArrayElements, selectors, collation, null);
+        }
+
+        /**
+         * @param sortViolations when not null, check only mode: the first violation of each document is reported here
+         *                       and no tree is changed.
+         */
+        JsonSorterVisitor(@Nullable String arrayKeyPath,
+                          boolean dedupeArrayElements,
+                          List<JsonPathSelector> selectors,
+                          KeyCollation collation,
+                          @Nullable SortViolations sortViolations) {
+            this.arrayKeyPath = StringUtils.trimToNull(arrayKeyPath);
+            this.dedupeArrayElements = dedupeArrayElements;
+            this.selectors = selectors;
+            this.collation = collation;
+            this.sortViolations = sortViolations;
+        }
+
+        @Override
+        public @NonNull Json.Member visitMember(@NonNull Json.Member member, @NonNull ExecutionContext executionContext) {
+            if (violationFound) {
+                return member;
+            }
+
+            if (selectors.isEmpty()) {
+                return super.visitMember(member, executionContext);
+            }
+
+            path.add(keyOf(member.getKey()));
+
+            try {
+                if (JsonPathSelector.match(selectors, path) == JsonPathSelector.Match.NONE) {
+                    // Nothing below can be selected.
+                    return member;
+                }
+
+                return super.visitMember(member, executionContext);
+            } finally {
+                path.remove(path.size() - 1);
+            }
+        }
+
+        @Override
+        public @NonNull Json.Array visitArray(@NonNull Json.Array array, @NonNull ExecutionContext executionContext) {
+            JsonPathSelector.Match match = JsonPathSelector.match(selectors, path);
+
+            if (match == JsonPathSelector.Match.NONE || violationFound) {
+                return array;
+            }
+
+            array = selectors.isEmpty() ? super.visitArray(array, executionContext) : visitElements(array, executionContext);
+
+            if (arrayKeyPath == null || match != JsonPathSelector.Match.SELECTED || violationFound) {
+                return array;
+            }
+
+            List<JsonRightPadded<JsonValue>> elements = array.getPadding().getValues();
+
+            if (elements.size() < 2) {
+                return array;
+            }
+
+            // Keys are extracted once per element, the comparisons only touch the extracted keys.
+            List<Pair<ElementKey, JsonRightPadded<JsonValue>>> keyed = new ArrayList<>(elements.size());
+            boolean requiresChange = false;
+            Set<ElementKey> seen = dedupeArrayElements ? new HashSet<>(elements.size() * 2) : null;
+
+            for (JsonRightPadded<JsonValue> element: elements) {
+                if (!(element.getElement() instanceof Json.JsonObject)) {
+                    // Only arrays of objects are sorted.
+                    return array;
+                }
+
+                ElementKey key = ElementKey.of(valueAt((Json.JsonObject) element.getElement(), arrayKeyPath), collation);
+
+                if (!requiresChange && !keyed.isEmpty() && keyed.get(keyed.size() - 1).getKey().compareTo(key) > 0) {
+                    requiresChange = true;
+                    report(keyed.get(keyed.size() - 1).getKey().toString(), key.toString(), "Out of order", executionContext);
+                }
+
+                if (seen != null && !key.isMissing() && !seen.add(key)) {
+                    if (!requiresChange) {
+                        report(key.toString(), key.toString(), "Duplicate", executionContext);
+                    }
+
+                    requiresChange = true;
+                }
+
+                if (requiresChange && sortViolations != null) {
+                    // Check only, the first violation is enough.
+                    return array;
+                }
+
+                keyed.add(Pair.of(key, element));
+            }
+
+            if (!requiresChange) {
+                return array;
+            }
+
+            // Stable, elements with equal keys keep their original order.
+            List<Pair<ElementKey, JsonRightPadded<JsonValue>>> sorted = new ArrayList<>(keyed);
+            sorted.sort(Map.Entry.comparingByKey());
+
+            if (seen != null) {
+                seen.clear();
+
+                sorted.removeIf(p -> {
+                    if (p.getKey().isMissing() || seen.add(p.getKey())) {
+                        return false;
+                    }
+
+                    logger.warn("Duplicate array element found and removed\nKey path: {}\nKey: {}",
+                            arrayKeyPath,
+                            p.getKey());
+
+                    return true;
+                });
+            }
+
+            // Each position keeps its own whitespace, the last position keeps the original closing whitespace.
+            List<JsonRightPadded<JsonValue>> newElements = new ArrayList<>(sorted.size());
+            int lastIdx = sorted.size() - 1;
+
+            for (int i = 0; i <= lastIdx; i++) {
+                JsonRightPadded<JsonValue> position = i == lastIdx ? elements.get(elements.size() - 1) : elements.get(i);
+                JsonValue value = sorted.get(i).getValue().getElement();
+
+                newElements.add(position.withElement(value.withPrefix(elements.get(i).getElement().getPrefix())));
+            }
+
+            return array.getPadding().withParameters(newElements);
+        }
+
+        /**
+         * Visits the elements of an array with their indices on the path.
+         */
+        private Json.Array visitElements(Json.Array array, ExecutionContext executionContext) {
+            return array.getPadding().withParameters(ListUtils.map(array.getPadding().getValues(), (i, element) -> {
+                path.add(String.valueOf(i));
+
+                try {
+                    return element.withElement((JsonValue) visitNonNull(element.getElement(), executionContext));
+                } finally {
+                    path.remove(path.size() - 1);
+                }
+            }));
         }
 
         @Override
         public @NonNull Json.JsonObject visitObject(@NonNull Json.JsonObject obj, @NonNull ExecutionContext executionContext) {
+            JsonPathSelector.Match match = JsonPathSelector.match(selectors, path);
+
+            if (match == JsonPathSelector.Match.NONE || violationFound) {
+                return obj;
+            }
+
             obj = super.visitObject(obj, executionContext);
 
-            if (CollectionUtils.isEmpty(obj.getMembers())) {
+            if (match != JsonPathSelector.Match.SELECTED || CollectionUtils.isEmpty(obj.getMembers()) || violationFound) {
                 return obj;
             }
 
             boolean requiresChange = false;
             Json.Member previous = null;
+            KeyCollation.Key previousKey = null;
 
             for (Json c: obj.getMembers()) {
                 if (!(c instanceof Json.Member)) {
                     continue;
                 }
 
+                // Each key is folded once, then compared with its neighbours.
+                KeyCollation.Key key = collation.key(sourceOf(((Json.Member) c).getKey()));
+
                 if (previous != null) {
                     Json.Member bMem = (Json.Member) c;
 
-                    String aKey = previous.getKey().toString();
-                    String bKey = bMem.getKey().toString();
+                    if (previousKey.compareTo(key) > 0) {
+                        requiresChange = true;
+                        report(keyOf(previous.getKey()), keyOf(bMem.getKey()), "Out of order", executionContext);
+                        break;
+                    }
 
-                    if (StringUtils.compareIgnoreCase(aKey, bKey) > 0) {
+                    // Sorted, but with a duplicate that must be removed.
+                    if (StringUtils.equals(keyOf(previous.getKey()), keyOf(bMem.getKey()))
+                            && isSameValue(previous.getValue(), bMem.getValue())) {
                         requiresChange = true;
+                        report(keyOf(previous.getKey()), keyOf(bMem.getKey()), "Duplicate", executionContext);
                         break;
                     }
                 }
 
                 previous = (Json.Member) c;
+                previousKey = key;
             }
 
-            if (!requiresChange) {
+            if (!requiresChange || sortViolations != null) {
                 return obj;
             }
 
             Json.Member originalFirstMember = (Json.Member) obj.getMembers().get(0);
 
-            Map<String, String> seen = new HashMap<>(obj.getMembers().size());
+            Map<String, JsonValue> seen = new HashMap<>(obj.getMembers().size());
 
-            List<JsonRightPadded<Json>> newMembers = new ArrayList<>(obj.getMembers()).stream()
+            List<Json> kept = new ArrayList<>(obj.getMembers()).stream()
                     .filter(c -> {
                         Json.Member m = (Json.Member) c;
                         JsonKey k = m.getKey();
                         JsonValue v = m.getValue();
 
-                        String key = k.toString();
-                        String value = v.getId().toString();
-                        
-                        if (v instanceof Json.Literal) {
-                            value = ((Json.Literal) v).getValue().toString();
-                        }
+                        String key = keyOf(k);
 
-                        String seenValue = seen.get(key);
+                        JsonValue seenValue = seen.get(key);
 
                         if (seenValue == null) {
                             // Key does not already exists.
-                            seen.put(key, value);
+                            seen.put(key, v);
 
                             return true;
 
-                        } else if (StringUtils.equals(seenValue, value)) {
+                        } else if (isSameValue(seenValue, v)) {
                             // Key already exists and the value is the same.
                             logger.warn("Duplicate key found and removed\nKey: {}\nValue: {}",
                                     key,
-                                    value);
+                                    describe(v));
 
                             return false;
 
@@ -139,21 +476,16 @@ public class JsonSorter extends Recipe {
                             // Key already exists and the value is not the same.
                             logger.warn("Duplicate key found\nKey: {}\nValue 1: {}\nValue 2: {}",
                                     key,
-                                    seenValue,
-                                    value);
+                                    describe(seenValue),
+                                    describe(v));
 
                             return true;
                         }
                     })
-                    .sorted((a, b) -> {
-                        Json.Member am = (Json.Member) a;
-                        Json.Member bm = (Json.Member) b;
-
-                        String ak = am.getKey().toString();
-                        String bk = bm.getKey().toString();
+                    .collect(Collectors.toList());
 
-                        return StringUtils.compareIgnoreCase(ak, bk);
-                    })
+            // Stable, the key of each member is computed once.
+            List<JsonRightPadded<Json>> newMembers = collation.sort(kept, c -> sourceOf(((Json.Member) c).getKey())).stream()
                     .map(c -> {
                         Json.Member m = (Json.Member) c;
                         JsonKey key = m.getKey();
@@ -181,13 +513,280 @@ public class JsonSorter extends Recipe {
         }
 
         @Override
-        public @NonNull Json.Document visitDocument(@NonNull Json.Document file, @NonNull ExecutionContext ctx) {
-            if (StringUtils.isNotBlank(filePattern)
-                    && !PathUtils.matchesGlob(file.getSourcePath().getFileName(), filePattern)) {
-                return file;
+        public @NonNull Json.Document visitDocument(@NonNull Json.Document document, @NonNull ExecutionContext ctx) {
+            try {
+                return super.visitDocument(document, ctx);
+            } finally {
+                hashes.clear();
+                violationFound = false;
+            }
+        }
+
+        private void report(String first, String second, String reason, ExecutionContext ctx) {
+            if (sortViolations == null) {
+                return;
             }
 
-            return super.visitDocument(file, ctx);
+            Json.Document document = getCursor().firstEnclosing(Json.Document.class);
+            String sourcePath = document == null ? "" : document.getSourcePath().toString();
+
+            sortViolations.insertRow(ctx, new SortViolations.Row(sourcePath, first, second, reason));
+            violationFound = true;
+        }
+
+        /**
+         * The value at a dotted key path, matching the longest key first so that keys containing dots are found.
+         */
+        @Nullable
+        private JsonValue valueAt(Json.JsonObject obj, String path) {
+            for (Json c: obj.getMembers()) {
+                if (c instanceof Json.Member && path.equals(keyOf(((Json.Member) c).getKey()))) {
+                    return ((Json.Member) c).getValue();
+                }
+            }
+
+            for (int dot = path.lastIndexOf('.'); dot > 0; dot = path.lastIndexOf('.', dot - 1)) {
+                String head = path.substring(0, dot);
+
+                for (Json c: obj.getMembers()) {
+                    if (c instanceof Json.Member
+                            && head.equals(keyOf(((Json.Member) c).getKey()))
+                            && ((Json.Member) c).getValue() instanceof Json.JsonObject) {
+                        JsonValue value = valueAt((Json.JsonObject) ((Json.Member) c).getValue(), path.substring(dot + 1));
+
+                        if (value != null) {
+                            return value;
+                        }
+                    }
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * The key as printed, members are ordered by it.
+         */
+        private String sourceOf(JsonKey k) {
+            if (k instanceof Json.Literal) {
+                return ((Json.Literal) k).getSource();
+            }
+
+            if (k instanceof Json.Identifier) {
+                return ((Json.Identifier) k).getName();
+            }
+
+            return k.toString();
+        }
+
+        private String keyOf(JsonKey k) {
+            if (k instanceof Json.Literal) {
+                return String.valueOf(((Json.Literal) k).getValue());
+            }
+
+            if (k instanceof Json.Identifier) {
+                return ((Json.Identifier) k).getName();
+            }
+
+            return k.toString();
+        }
+
+        private String describe(JsonValue v) {
+            if (v instanceof Json.Literal) {
+                return String.valueOf(((Json.Literal) v).getValue());
+            }
+
+            return v.printTrimmed(getCursor());
+        }
+
+        /**
+         * Structural equality, the full comparison only runs when the cached hashes match.
+         */
+        private boolean isSameValue(Json a, Json b) {
+            return hash(a) == hash(b) && isSameStructure(a, b);
+        }
+
+        /**
+         * Bottom-up structural hash of a subtree, cached per node. Nested objects were already sorted and
+         * deduplicated by the post-order visit, so equal objects hash equally regardless of their original order.
+         */
+        private long hash(Json j) {
+            Long cached = hashes.get(j);
+            if (cached != null) {
+                return cached;
+            }
+
+            long h;
+
+            if (j instanceof Json.Literal) {
+                h = combine(1, ((Json.Literal) j).getSource().hashCode());
+            } else if (j instanceof Json.Identifier) {
+                h = combine(2, ((Json.Identifier) j).getName().hashCode());
+            } else if (j instanceof Json.Member) {
+                Json.Member m = (Json.Member) j;
+                h = combine(combine(3, keyOf(m.getKey()).hashCode()), hash(m.getValue()));
+            } else if (j instanceof Json.JsonObject) {
+                h = 4;
+                for (Json member: ((Json.JsonObject) j).getMembers()) {
+                    h = combine(h, hash(member));
+                }
+            } else if (j instanceof Json.Array) {
+                h = 5;
+                for (JsonValue value: ((Json.Array) j).getValues()) {
+                    h = combine(h, hash(value));
+                }
+            } else {
+                h = combine(6, j.getClass().hashCode());
+            }
+
+            hashes.put(j, h);
+
+            return h;
+        }
+
+        private static long combine(long h, long value) {
+            return (h ^ value) * 0x100000001B3L;
+        }
+
+        private boolean isSameStructure(Json a, Json b) {
+            if (a == b) {
+                return true;
+            }
+
+            if (a.getClass() != b.getClass()) {
+                return false;
+            }
+
+            if (a instanceof Json.Literal) {
+                return ((Json.Literal) a).getSource().equals(((Json.Literal) b).getSource());
+            }
+
+            if (a instanceof Json.Identifier) {
+                return ((Json.Identifier) a).getName().equals(((Json.Identifier) b).getName());
+            }
+
+            if (a instanceof Json.Member) {
+                Json.Member am = (Json.Member) a;
+                Json.Member bm = (Json.Member) b;
+
+                return keyOf(am.getKey()).equals(keyOf(bm.getKey())) && isSameStructure(am.getValue(), bm.getValue());
+            }
+
+            if (a instanceof Json.JsonObject) {
+                return isSameStructure(((Json.JsonObject) a).getMembers(), ((Json.JsonObject) b).getMembers());
+            }
+
+            if (a instanceof Json.Array) {
+                return isSameStructure(((Json.Array) a).getValues(), ((Json.Array) b).getValues());
+            }
+
+            return a instanceof Json.Empty;
+        }
+
+        private boolean isSameStructure(List<? extends Json> a, List<? extends Json> b) {
+            if (a.size() != b.size()) {
+                return false;
+            }
+
+            for (int i = 0; i < a.size(); i++) {
+                if (!isSameStructure(a.get(i), b.get(i))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Sort key of an array element: numbers first in numeric order, then other values in the order of the
+         * collation, then elements without the key.
+         */
+        private static final class ElementKey implements Comparable<ElementKey> {
+            private static final ElementKey MISSING = new ElementKey(null, null, null);
+
+            @Nullable
+            private final BigDecimal number;
+
+            @Nullable
+            private final String text;
+
+            @Nullable
+            private final KeyCollation.Key textKey;
+
+            private ElementKey(@Nullable BigDecimal number, @Nullable String text, @Nullable KeyCollation.Key textKey) {
+                this.number = number;
+                this.text = text;
+                this.textKey = textKey;
+            }
+
+            static ElementKey of(@Nullable JsonValue value, KeyCollation collation) {
+                if (!(value instanceof Json.Literal)) {
+                    return MISSING;
+                }
+
+                Json.Literal literal = (Json.Literal) value;
+
+                if (literal.getValue() instanceof Number) {
+                    try {
+                        return new ElementKey(new BigDecimal(literal.getSource().trim()), null, null);
+                    } catch (NumberFormatException e) {
+                        // Non decimal forms such as hexadecimal fall back to text.
+                    }
+                }
+
+                String text = String.valueOf(literal.getValue());
+
+                return new ElementKey(null, text, collation.key(text));
+            }
+
+            boolean isMissing() {
+                return this == MISSING;
+            }
+
+            @Override
+            public int compareTo(@NonNull ElementKey o) {
+                if (number != null || o.number != null) {
+                    if (number == null) {
+                        return o.isMissing() ? -1 : 1;
+                    }
+
+                    return o.number == null ? -1 : number.compareTo(o.number);
+                }
+
+                if (text == null || o.text == null) {
+                    return Boolean.compare(text == null, o.text == null);
+                }
+
+                int c = textKey.compareTo(o.textKey);
+
+                return c != 0 ? c : text.compareTo(o.text);
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) {
+                    return true;
+                }
+
+                if (!(o instanceof ElementKey)) {
+                    return false;
+                }
+
+                ElementKey that = (ElementKey) o;
+
+                return (number == null ? that.number == null : that.number != null && number.compareTo(that.number) == 0)
+                        && Objects.equals(text, that.text);
+            }
+
+            @Override
+            public int hashCode() {
+                return number != null ? number.stripTrailingZeros().hashCode() : Objects.hashCode(text);
+            }
+
+            @Override
+            public String toString() {
+                return number != null ? number.toPlainString() : String.valueOf(text);
+            }
         }
     }
 }
@@ -0,0 +1,883 @@
+package me.khairulsyamil.openrewrite.json;
+
+import me.khairulsyamil.openrewrite.KeyCollation;
+import org.apache.commons.lang3.StringUtils;
+import org.openrewrite.internal.lang.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Sorts and deduplicates the objects of a JSON file without building the LST, for documents too large for
+ * {@link JsonSorter}. The output is identical to {@link JsonSorter} with the same collation and otherwise its default
+ * options.
+ * <p>
+ * The input is memory-mapped and tokenized in a single pass. Only the members of the objects being visited are
+ * held in memory, each object buffers its members as printed, whitespace included, and spills the buffer to a
+ * temporary file once it grows past the buffer size. Memory is bounded by the nesting depth times the buffer size,
+ * plus one small record per member of the open objects: the key as written, its collation key and offsets into the
+ * buffer. That record is the remaining O(members) cost, a flat object of millions of members still needs memory for
+ * millions of keys.
+ */
+public final class StreamingJsonSorter {
+    public static final int DEFAULT_BUFFER_SIZE = 8 * 1024 * 1024;
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingJsonSorter.class);
+
+    // Longest value printed in full in the duplicate warnings.
+    private static final int MAX_LOGGED_VALUE = 4096;
+
+    private final int bufferSize;
+
+    @Nullable
+    private final Path tempDir;
+
+    private final KeyCollation collation;
+
+    public StreamingJsonSorter() {
+        this(DEFAULT_BUFFER_SIZE, null, null);
+    }
+
+    /**
+     * @param bufferSize bytes an object buffers in memory before spilling to disk.
+     * @param tempDir    directory of the spill files, null uses the default temporary directory.
+     * @param collation  ordering of the keys, as the {@code collation} option of {@link JsonSorter}, null ignores case.
+     * @throws IllegalArgumentException on an unknown collation.
+     */
+    public StreamingJsonSorter(int bufferSize, @Nullable Path tempDir, @Nullable String collation) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+
+        this.bufferSize = bufferSize;
+        this.tempDir = tempDir;
+        this.collation = KeyCollation.compile(collation);
+    }
+
+    /**
+     * Usage: {@code StreamingJsonSorter <input> [output]}, the input is replaced when no output is given.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: " + StreamingJsonSorter.class.getName() + " <input> [output]");
+            System.exit(2);
+        }
+
+        Path input = Paths.get(args[0]);
+        Path output = args.length > 1 ? Paths.get(args[1]) : input;
+
+        new StreamingJsonSorter().sort(input, output);
+    }
+
+    /**
+     * Sorts a file, the output may be the input itself, which is then replaced once the sorted file is complete.
+     */
+    public void sort(Path input, Path output) throws IOException {
+        boolean inPlace = Files.exists(output) && Files.isSameFile(input, output);
+        Path parent = output.toAbsolutePath().getParent();
+        Path target = inPlace ? Files.createTempFile(parent, output.getFileName().toString(), ".tmp") : output;
+
+        try {
+            try (MappedInput in = new MappedInput(input);
+                 OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+                new Parser(in).document(out);
+            }
+
+            if (inPlace) {
+                Files.move(target, output, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (inPlace) {
+                Files.deleteIfExists(target);
+            }
+
+            throw e;
+        }
+    }
+
+    public void sort(InputStream input, OutputStream output) throws IOException {
+        new Parser(new StreamInput(input)).document(output);
+    }
+
+    private static long combine(long h, long value) {
+        return (h ^ value) * 0x100000001B3L;
+    }
+
+    private static void write(OutputStream out, String s) throws IOException {
+        if (!s.isEmpty()) {
+            out.write(s.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Recursive descent over the tokens, printing each value as {@link JsonSorter} would print it.
+     */
+    private final class Parser {
+        private final ByteInput in;
+
+        Parser(ByteInput in) {
+            this.in = in;
+        }
+
+        void document(OutputStream out) throws IOException {
+            write(out, space(in));
+
+            if (in.peek() < 0) {
+                return;
+            }
+
+            value(out);
+            write(out, space(in));
+
+            if (in.peek() >= 0) {
+                throw unexpected(in);
+            }
+        }
+
+        /**
+         * Prints the value at the current position, its prefix already consumed.
+         *
+         * @return the structural hash of the printed value.
+         */
+        private long value(OutputStream out) throws IOException {
+            int c = in.peek();
+
+            if (c == '{') {
+                return object(out);
+            }
+
+            if (c == '[') {
+                return array(out);
+            }
+
+            return combine(1, literal(in, out));
+        }
+
+        private long array(OutputStream out) throws IOException {
+            in.read();
+            out.write('[');
+
+            String prefix = space(in);
+            long h = 5;
+
+            if (in.peek() == ']') {
+                in.read();
+                write(out, prefix);
+                out.write(']');
+
+                return combine(h, 6);
+            }
+
+            while (true) {
+                write(out, prefix);
+                h = combine(h, value(out));
+                write(out, space(in));
+
+                int c = in.read();
+                out.write(c);
+
+                if (c == ']') {
+                    return h;
+                }
+
+                if (c != ',') {
+                    throw unexpected(in);
+                }
+
+                prefix = space(in);
+            }
+        }
+
+        private long object(OutputStream out) throws IOException {
+            in.read();
+
+            String prefix = space(in);
+
+            if (in.peek() == '}') {
+                in.read();
+                out.write('{');
+                write(out, prefix);
+                out.write('}');
+
+                return combine(4, 6);
+            }
+
+            List<Member> members = new ArrayList<>();
+            // Only the first prefix is printed again when the members are sorted.
+            String firstPrefix = prefix;
+
+            try (SpillBuffer values = new SpillBuffer(bufferSize, tempDir)) {
+                while (true) {
+                    // The member is buffered as printed, only its key and offsets stay on the heap.
+                    Member m = new Member();
+                    m.start = values.size();
+                    write(values, prefix);
+
+                    ByteArrayOutputStream key = new ByteArrayOutputStream(32);
+                    literal(in, key);
+                    m.keySource = key.toString(StandardCharsets.UTF_8);
+                    m.sortKey = collation.key(m.keySource);
+                    write(values, m.keySource);
+
+                    m.keyAfterOffset = values.size();
+                    write(values, space(in));
+                    m.keyAfterLength = (int) (values.size() - m.keyAfterOffset);
+
+                    if (in.read() != ':') {
+                        throw unexpected(in);
+                    }
+
+                    values.write(':');
+                    write(values, space(in));
+                    m.literal = in.peek() != '{' && in.peek() != '[';
+                    m.offset = values.size();
+                    m.hash = value(values);
+                    m.length = values.size() - m.offset;
+                    write(values, space(in));
+                    m.end = values.size();
+
+                    members.add(m);
+
+                    int c = in.read();
+
+                    if (c == '}') {
+                        break;
+                    }
+
+                    if (c != ',') {
+                        throw unexpected(in);
+                    }
+
+                    prefix = space(in);
+                }
+
+                if (requiresChange(members, values)) {
+                    return printSorted(members, firstPrefix, values, out);
+                }
+
+                return print(members, values, out);
+            }
+        }
+
+        private boolean requiresChange(List<Member> members, SpillBuffer values) throws IOException {
+            Member previous = null;
+
+            for (Member m: members) {
+                if (previous != null) {
+                    if (previous.sortKey.compareTo(m.sortKey) > 0) {
+                        return true;
+                    }
+
+                    // Sorted, but with a duplicate that must be removed.
+                    if (StringUtils.equals(previous.key(), m.key()) && isSameValue(previous, m, values)) {
+                        return true;
+                    }
+                }
+
+                previous = m;
+            }
+
+            return false;
+        }
+
+        private long print(List<Member> members, SpillBuffer values, OutputStream out) throws IOException {
+            long h = 4;
+
+            out.write('{');
+
+            for (int i = 0; i < members.size(); i++) {
+                Member m = members.get(i);
+
+                values.copyTo(out, m.start, m.end - m.start);
+                out.write(i < members.size() - 1 ? ',' : '}');
+
+                h = combine(h, m.memberHash());
+            }
+
+            return h;
+        }
+
+        private long printSorted(List<Member> members, String firstPrefix, SpillBuffer values, OutputStream out) throws IOException {
+            Map<String, Member> seen = new HashMap<>(members.size() * 2);
+            List<Member> kept = new ArrayList<>(members.size());
+
+            for (Member m: members) {
+                String key = m.key();
+                Member seenMember = seen.get(key);
+
+                if (seenMember == null) {
+                    // Key does not already exists.
+                    seen.put(key, m);
+                    kept.add(m);
+
+                } else if (isSameValue(seenMember, m, values)) {
+                    // Key already exists and the value is the same.
+                    logger.warn("Duplicate key found and removed\nKey: {}\nValue: {}",
+                            key,
+                            describe(m, values));
+
+                } else {
+                    // Key already exists and the value is not the same.
+                    logger.warn("Duplicate key found\nKey: {}\nValue 1: {}\nValue 2: {}",
+                            key,
+                            describe(seenMember, values),
+                            describe(m, values));
+
+                    kept.add(m);
+                }
+            }
+
+            // Stable, like the sort of the LST members.
+            kept.sort(Comparator.comparing(m -> m.sortKey));
+
+            // Every member takes the prefix of the original first member, the closing brace is outdented by 4.
+            String whitespace = leadingWhitespace(firstPrefix);
+            String lastMemberAfter = whitespace.substring(0, Math.max(0, whitespace.length() - 4));
+
+            long h = 4;
+
+            out.write('{');
+
+            for (int i = 0; i < kept.size(); i++) {
+                Member m = kept.get(i);
+
+                write(out, firstPrefix);
+                write(out, m.keySource);
+                values.copyTo(out, m.keyAfterOffset, m.keyAfterLength);
+                out.write(':');
+                out.write(' ');
+                values.copyTo(out, m.offset, m.length);
+
+                if (i < kept.size() - 1) {
+                    out.write(',');
+                } else {
+                    write(out, lastMemberAfter);
+                    out.write('}');
+                }
+
+                h = combine(h, m.memberHash());
+            }
+
+            return h;
+        }
+
+        /**
+         * Structural equality, the printed values are only compared token by token when the hashes match.
+         */
+        private boolean isSameValue(Member a, Member b, SpillBuffer values) throws IOException {
+            if (a.hash != b.hash || a.literal != b.literal) {
+                return false;
+            }
+
+            StreamInput x = new StreamInput(values.open(a.offset, a.length));
+            StreamInput y = new StreamInput(values.open(b.offset, b.length));
+
+            while (true) {
+                space(x);
+                space(y);
+
+                if (x.peek() < 0 || y.peek() < 0) {
+                    return x.peek() == y.peek();
+                }
+
+                if (!Arrays.equals(token(x), token(y))) {
+                    return false;
+                }
+            }
+        }
+
+        private String describe(Member m, SpillBuffer values) throws IOException {
+            if (m.length > MAX_LOGGED_VALUE) {
+                return "<" + m.length + " bytes>";
+            }
+
+            ByteArrayOutputStream value = new ByteArrayOutputStream((int) m.length);
+            values.copyTo(value, m.offset, m.length);
+            String printed = value.toString(StandardCharsets.UTF_8);
+
+            if (m.literal && !printed.isEmpty() && (printed.charAt(0) == '"' || printed.charAt(0) == '\'')) {
+                return unquote(printed);
+            }
+
+            return printed.trim();
+        }
+    }
+
+    /**
+     * A member of an open object, everything but its key is read back from the buffer.
+     */
+    private static final class Member {
+        String keySource;
+        KeyCollation.Key sortKey;
+        boolean literal;
+        // The whole member, prefix to trailing whitespace.
+        long start;
+        long end;
+        long keyAfterOffset;
+        int keyAfterLength;
+        // The value.
+        long offset;
+        long length;
+        long hash;
+
+        String key() {
+            return keySource.startsWith("\"") || keySource.startsWith("'") ? unquote(keySource) : keySource;
+        }
+
+        long memberHash() {
+            return combine(combine(3, key().hashCode()), hash);
+        }
+    }
+
+    /**
+     * Reads whitespace and comments, returning them as printed.
+     */
+    private static String space(ByteInput in) throws IOException {
+        ByteArrayOutputStream space = null;
+
+        while (true) {
+            int c = in.peek();
+
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                in.read();
+            } else if (c == '/') {
+                in.read();
+
+                if (space == null) {
+                    space = new ByteArrayOutputStream();
+                }
+
+                space.write(c);
+                int next = in.read();
+                space.write(next);
+
+                if (next == '/') {
+                    while (in.peek() >= 0 && in.peek() != '\n') {
+                        space.write(in.read());
+                    }
+                } else if (next == '*') {
+                    int last = 0;
+
+                    while (true) {
+                        int b = in.read();
+
+                        if (b < 0) {
+                            throw unexpected(in);
+                        }
+
+                        space.write(b);
+
+                        if (last == '*' && b == '/') {
+                            break;
+                        }
+
+                        last = b;
+                    }
+                } else {
+                    throw unexpected(in);
+                }
+
+                continue;
+            } else {
+                return space == null ? "" : space.toString(StandardCharsets.UTF_8);
+            }
+
+            if (space == null) {
+                space = new ByteArrayOutputStream();
+            }
+
+            space.write(c);
+        }
+    }
+
+    /**
+     * Copies a string, number, keyword or identifier token.
+     *
+     * @return the hash of the token as printed.
+     */
+    private static long literal(ByteInput in, OutputStream out) throws IOException {
+        int quote = in.peek();
+        long h = 0xCBF29CE484222325L;
+
+        if (quote == '"' || quote == '\'') {
+            out.write(in.read());
+            h = combine(h, quote);
+
+            while (true) {
+                int b = in.read();
+
+                if (b < 0) {
+                    throw unexpected(in);
+                }
+
+                out.write(b);
+                h = combine(h, b);
+
+                if (b == '\\') {
+                    b = in.read();
+                    out.write(b);
+                    h = combine(h, b);
+                } else if (b == quote) {
+                    return h;
+                }
+            }
+        }
+
+        int length = 0;
+
+        while (true) {
+            int b = in.peek();
+
+            if (b < 0 || b == ',' || b == ':' || b == '}' || b == ']' || b == '{' || b == '['
+                    || b == '/' || b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                break;
+            }
+
+            out.write(in.read());
+            h = combine(h, b);
+            length++;
+        }
+
+        if (length == 0) {
+            throw unexpected(in);
+        }
+
+        return h;
+    }
+
+    private static byte[] token(ByteInput in) throws IOException {
+        int c = in.peek();
+
+        if (c == '{' || c == '}' || c == '[' || c == ']' || c == ',' || c == ':') {
+            return new byte[]{(byte) in.read()};
+        }
+
+        ByteArrayOutputStream token = new ByteArrayOutputStream();
+        literal(in, token);
+
+        return token.toByteArray();
+    }
+
+    private static String leadingWhitespace(String space) {
+        int end = 0;
+
+        while (end < space.length() && Character.isWhitespace(space.charAt(end))) {
+            end++;
+        }
+
+        return space.substring(0, end);
+    }
+
+    /**
+     * The value of a quoted string token.
+     */
+    private static String unquote(String source) {
+        StringBuilder value = new StringBuilder(source.length());
+
+        for (int i = 1; i < source.length() - 1; i++) {
+            char c = source.charAt(i);
+
+            if (c != '\\' || i + 1 >= source.length() - 1) {
+                value.append(c);
+                continue;
+            }
+
+            char escaped = source.charAt(++i);
+
+            switch (escaped) {
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (i + 4 < source.length()) {
+                        value.append((char) Integer.parseInt(source.substring(i + 1, i + 5), 16));
+                        i += 4;
+                    } else {
+                        value.append(escaped);
+                    }
+                }
+                default -> value.append(escaped);
+            }
+        }
+
+        return value.toString();
+    }
+
+    private static IllegalArgumentException unexpected(ByteInput in) throws IOException {
+        int c = in.peek();
+
+        return new IllegalArgumentException("Invalid JSON at offset " + in.position() + ": "
+                + (c < 0 ? "unexpected end of input" : "unexpected '" + (char) c + "'"));
+    }
+
+    private interface ByteInput {
+        int peek() throws IOException;
+
+        int read() throws IOException;
+
+        long position();
+    }
+
+    /**
+     * A file read through memory-mapped windows, so files larger than a single mapping are supported.
+     */
+    private static final class MappedInput implements ByteInput, Closeable {
+        private static final long WINDOW = 1L << 28;
+
+        private final FileChannel channel;
+        private final long size;
+
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long position;
+
+        MappedInput(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+        }
+
+        @Override
+        public int peek() throws IOException {
+            if (position >= size) {
+                return -1;
+            }
+
+            if (window == null || position >= windowStart + window.capacity()) {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+            }
+
+            return window.get((int) (position - windowStart)) & 0xFF;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = peek();
+
+            if (b >= 0) {
+                position++;
+            }
+
+            return b;
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static final class StreamInput implements ByteInput {
+        private final InputStream in;
+        private int next = -2;
+        private long position;
+
+        StreamInput(InputStream in) {
+            this.in = in instanceof BufferedInputStream || in instanceof ByteArrayInputStream ? in : new BufferedInputStream(in);
+        }
+
+        @Override
+        public int peek() throws IOException {
+            if (next == -2) {
+                next = in.read();
+            }
+
+            return next;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = peek();
+
+            if (b >= 0) {
+                next = -2;
+                position++;
+            }
+
+            return b;
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+    }
+
+    /**
+     * Output buffered in memory up to a limit, then in a temporary file deleted on close.
+     */
+    private static final class SpillBuffer extends OutputStream {
+        private final int limit;
+
+        @Nullable
+        private final Path tempDir;
+
+        private byte[] memory = new byte[256];
+        private long size;
+
+        @Nullable
+        private Path file;
+
+        @Nullable
+        private FileChannel channel;
+
+        @Nullable
+        private OutputStream fileOut;
+
+        SpillBuffer(int limit, @Nullable Path tempDir) {
+            this.limit = limit;
+            this.tempDir = tempDir;
+        }
+
+        long size() {
+            return size;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (fileOut == null && size + 1 > memory.length && !grow(size + 1)) {
+                spill();
+            }
+
+            if (fileOut != null) {
+                fileOut.write(b);
+            } else {
+                memory[(int) size] = (byte) b;
+            }
+
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (fileOut == null && size + len > memory.length && !grow(size + len)) {
+                spill();
+            }
+
+            if (fileOut != null) {
+                fileOut.write(b, off, len);
+            } else {
+                System.arraycopy(b, off, memory, (int) size, len);
+            }
+
+            size += len;
+        }
+
+        private boolean grow(long required) {
+            if (required > limit) {
+                return false;
+            }
+
+            memory = Arrays.copyOf(memory, (int) Math.min(limit, Math.max(required, memory.length * 2L)));
+
+            return true;
+        }
+
+        private void spill() throws IOException {
+            file = tempDir == null
+                    ? Files.createTempFile("json-sorter", ".spill")
+                    : Files.createTempFile(tempDir, "json-sorter", ".spill");
+            fileOut = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+            fileOut.write(memory, 0, (int) size);
+            memory = null;
+        }
+
+        private FileChannel reader() throws IOException {
+            fileOut.flush();
+
+            if (channel == null) {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+            }
+
+            return channel;
+        }
+
+        void copyTo(OutputStream out, long offset, long length) throws IOException {
+            if (fileOut == null) {
+                out.write(memory, (int) offset, (int) length);
+                return;
+            }
+
+            FileChannel reader = reader();
+            ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(64 * 1024, Math.max(1, length)));
+
+            while (length > 0) {
+                chunk.clear().limit((int) Math.min(chunk.capacity(), length));
+
+                int read = reader.read(chunk, offset);
+
+                if (read < 0) {
+                    throw new EOFException(file.toString());
+                }
+
+                out.write(chunk.array(), 0, read);
+                offset += read;
+                length -= read;
+            }
+        }
+
+        InputStream open(long offset, long length) throws IOException {
+            if (fileOut == null) {
+                return new ByteArrayInputStream(memory, (int) offset, (int) length);
+            }
+
+            FileChannel reader = reader();
+
+            return new BufferedInputStream(new InputStream() {
+                private long position = offset;
+                private final long end = offset + length;
+
+                @Override
+                public int read() throws IOException {
+                    byte[] b = new byte[1];
+
+                    return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (position >= end) {
+                        return -1;
+                    }
+
+                    int read = reader.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+
+                    if (read > 0) {
+                        position += read;
+                    }
+
+                    return read;
+                }
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (fileOut != null) {
+                fileOut.close();
+            }
+
+            if (channel != null) {
+                channel.close();
+            }
+
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
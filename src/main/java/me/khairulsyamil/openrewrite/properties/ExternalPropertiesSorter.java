@@ -0,0 +1,561 @@
+package me.khairulsyamil.openrewrite.properties;
+
+import me.khairulsyamil.openrewrite.KeyCollation;
+import org.apache.commons.lang3.StringUtils;
+import org.openrewrite.internal.lang.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Sorts, trims and deduplicates a properties file like {@link PropertiesSorter}, with an external merge sort
+ * instead of the LST, for files too large to hold in memory.
+ * <p>
+ * The file is read in chunks through a {@link FileChannel}. Entries are collected into runs up to the run size,
+ * each run is sorted in memory and spilled to a temporary file, then the runs are k-way merged into the output.
+ * Duplicates are removed during the merge with the same rules and warnings as {@link PropertiesSorter}: equal
+ * keys always end up next to each other, so only the keys collating equal to the current one are held.
+ * A file that fits in a single run is never spilled. A file that is already sorted is left unchanged.
+ * <p>
+ * Lines end with {@code \n} or {@code \r\n}, the output separates entries with {@code \n} and ends with the
+ * whitespace after the last entry, as printed by {@link PropertiesSorter}.
+ */
+public final class ExternalPropertiesSorter {
+    public static final int DEFAULT_RUN_SIZE = 32 * 1024 * 1024;
+
+    private static final Logger logger = LoggerFactory.getLogger(ExternalPropertiesSorter.class);
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    // Stable, entries with keys collating equal keep their order, runs are merged in file order.
+    private static final Comparator<Entry> ORDER = Comparator.comparing(e -> e.sortKey);
+
+    private final int runSize;
+
+    @Nullable
+    private final Path tempDir;
+
+    private final KeyCollation collation;
+
+    public ExternalPropertiesSorter() {
+        this(DEFAULT_RUN_SIZE, null, null);
+    }
+
+    /**
+     * @param runSize   approximate characters of entries sorted in memory before a run is spilled to disk.
+     * @param tempDir   directory of the run files, null uses the default temporary directory.
+     * @param collation ordering of the keys, as the {@code collation} option of {@link PropertiesSorter}, null ignores
+     *                  case.
+     * @throws IllegalArgumentException on an unknown collation.
+     */
+    public ExternalPropertiesSorter(int runSize, @Nullable Path tempDir, @Nullable String collation) {
+        if (runSize <= 0) {
+            throw new IllegalArgumentException("Run size must be positive: " + runSize);
+        }
+
+        this.runSize = runSize;
+        this.tempDir = tempDir;
+        this.collation = KeyCollation.compile(collation);
+    }
+
+    /**
+     * Usage: {@code ExternalPropertiesSorter <input> [output]}, the input is replaced when no output is given.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: " + ExternalPropertiesSorter.class.getName() + " <input> [output]");
+            System.exit(2);
+        }
+
+        Path input = Paths.get(args[0]);
+        Path output = args.length > 1 ? Paths.get(args[1]) : input;
+
+        new ExternalPropertiesSorter().sort(input, output);
+    }
+
+    /**
+     * Sorts a file, the output may be the input itself, which is then replaced once the sorted file is complete.
+     */
+    public void sort(Path input, Path output) throws IOException {
+        boolean inPlace = Files.exists(output) && Files.isSameFile(input, output);
+        List<Path> runs = new ArrayList<>();
+
+        try {
+            Runs result = split(input, runs);
+
+            if (!result.requiresChange) {
+                if (!inPlace) {
+                    Files.copy(input, output, StandardCopyOption.REPLACE_EXISTING);
+                }
+
+                return;
+            }
+
+            Path parent = output.toAbsolutePath().getParent();
+            Path target = inPlace ? Files.createTempFile(parent, output.getFileName().toString(), ".tmp") : output;
+
+            try {
+                try (Writer out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+                    merge(result, runs, out);
+                    out.write(result.eof);
+                }
+
+                if (inPlace) {
+                    Files.move(target, output, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (inPlace) {
+                    Files.deleteIfExists(target);
+                }
+
+                throw e;
+            }
+        } finally {
+            for (Path run: runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    /**
+     * Reads the entries into sorted runs, spilling every full run to a file.
+     */
+    private Runs split(Path input, List<Path> runs) throws IOException {
+        Runs result = new Runs();
+        List<Entry> run = new ArrayList<>();
+        long runChars = 0;
+
+        try (LineReader lines = new LineReader(input)) {
+            Entry previous = null;
+            String line;
+            boolean first = true;
+            boolean previousLineTrimmed = true;
+            // Entries are separated by \n, a \r\n between two entries is rewritten.
+            boolean previousLineCrlf = false;
+
+            while ((line = lines.next()) != null) {
+                String logical = line;
+
+                // A line ending with an odd number of backslashes continues on the next line.
+                while (isContinued(logical) && (line = lines.next()) != null) {
+                    logical = logical + "\n" + line;
+                }
+
+                String trimmed = StringUtils.stripStart(logical, null);
+
+                if (trimmed.isEmpty() || trimmed.charAt(0) == '#' || trimmed.charAt(0) == '!') {
+                    // Comments and blank lines are removed.
+                    if (!trimmed.isEmpty() || !first) {
+                        result.requiresChange = true;
+                    }
+
+                    if (!trimmed.isEmpty()) {
+                        lines.commentEnded();
+                    }
+
+                    continue;
+                }
+
+                Entry entry = Entry.parse(trimmed, collation);
+
+                if ((!first && trimmed.length() != logical.length()) || !previousLineTrimmed || previousLineCrlf
+                        || (previous != null && ORDER.compare(previous, entry) > 0)) {
+                    result.requiresChange = true;
+                }
+
+                previousLineTrimmed = entry.value.length() == entry.rawValueLength;
+                previousLineCrlf = "\r\n".equals(lines.lineBreak());
+                first = false;
+                previous = entry;
+
+                run.add(entry);
+                runChars += entry.size();
+
+                if (runChars >= runSize) {
+                    runs.add(spill(run));
+                    run.clear();
+                    runChars = 0;
+                }
+            }
+
+            result.eof = lines.trailingWhitespace();
+        }
+
+        // Kept in memory, as the only run or the last one.
+        run.sort(ORDER);
+        result.memory = run;
+
+        return result;
+    }
+
+    private Path spill(List<Entry> run) throws IOException {
+        run.sort(ORDER);
+
+        Path file = tempDir == null
+                ? Files.createTempFile("properties-sorter", ".run")
+                : Files.createTempFile(tempDir, "properties-sorter", ".run");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), CHUNK_SIZE))) {
+            for (Entry e: run) {
+                e.write(out);
+            }
+        }
+
+        return file;
+    }
+
+    /**
+     * Merges the spilled runs and the run in memory, removing duplicates as the entries come out in order.
+     */
+    private void merge(Runs result, List<Path> runs, Writer out) throws IOException {
+        List<Cursor> cursors = new ArrayList<>(runs.size() + 1);
+
+        try {
+            for (Path run: runs) {
+                cursors.add(new Cursor(cursors.size(), new DataInputStream(new BufferedInputStream(Files.newInputStream(run), CHUNK_SIZE)), collation));
+            }
+
+            cursors.add(new Cursor(cursors.size(), result.memory.iterator()));
+
+            // Runs hold consecutive parts of the file, ties go to the earlier run to keep the merge stable.
+            PriorityQueue<Cursor> queue = new PriorityQueue<>(Comparator.<Cursor, Entry>comparing(c -> c.current, ORDER)
+                    .thenComparingInt(c -> c.index));
+
+            for (Cursor c: cursors) {
+                if (c.advance()) {
+                    queue.add(c);
+                }
+            }
+
+            boolean first = true;
+            Entry group = null;
+            Map<String, String> seen = new HashMap<>();
+
+            while (!queue.isEmpty()) {
+                Cursor c = queue.poll();
+                Entry e = c.current;
+
+                if (c.advance()) {
+                    queue.add(c);
+                }
+
+                if (group == null || ORDER.compare(group, e) != 0) {
+                    // Equal keys are next to each other, earlier keys can no longer be duplicated.
+                    group = e;
+                    seen.clear();
+                }
+
+                String seenValue = seen.get(e.key);
+
+                if (seenValue == null) {
+                    // Key does not already exists.
+                    seen.put(e.key, e.value);
+
+                } else if (StringUtils.equals(seenValue, e.value)) {
+                    // Key already exists and the value is the same.
+                    logger.warn("Duplicate key found and removed\nKey: {}\nValue: {}",
+                            e.key,
+                            e.value);
+
+                    continue;
+
+                } else {
+                    // Key already exists and the value is not the same.
+                    logger.warn("Duplicate key found\nKey: {}\nValue 1: {}\nValue 2: {}",
+                            e.key,
+                            seenValue,
+                            e.value);
+                }
+
+                if (!first) {
+                    out.write('\n');
+                }
+
+                out.write(e.head);
+                out.write(e.value);
+                first = false;
+            }
+        } finally {
+            for (Cursor c: cursors) {
+                c.close();
+            }
+        }
+    }
+
+    private static boolean isContinued(String line) {
+        int backslashes = 0;
+
+        for (int i = line.length() - 1; i >= 0 && line.charAt(i) == '\\'; i--) {
+            backslashes++;
+        }
+
+        return backslashes % 2 == 1;
+    }
+
+    private static final class Runs {
+        boolean requiresChange;
+        String eof = "";
+        List<Entry> memory = Collections.emptyList();
+    }
+
+    private static final class Entry {
+        final String key;
+        // Key, separator and the whitespace before the value, as printed.
+        final String head;
+        final String value;
+        final int rawValueLength;
+        // Not spilled, computed again when a run is read back.
+        final KeyCollation.Key sortKey;
+
+        Entry(String key, String head, String value, int rawValueLength, KeyCollation collation) {
+            this.key = key;
+            this.head = head;
+            this.value = value;
+            this.rawValueLength = rawValueLength;
+            this.sortKey = collation.key(key);
+        }
+
+        /**
+         * Splits a logical line, without its leading whitespace, into its key, separator and trimmed value.
+         */
+        static Entry parse(String line, KeyCollation collation) {
+            int i = 0;
+
+            while (i < line.length()) {
+                char c = line.charAt(i);
+
+                if (c == '\\') {
+                    i += 2;
+                    continue;
+                }
+
+                if (c == '=' || c == ':' || Character.isWhitespace(c)) {
+                    break;
+                }
+
+                i++;
+            }
+
+            int keyEnd = Math.min(i, line.length());
+
+            while (i < line.length() && (line.charAt(i) == ' ' || line.charAt(i) == '\t' || line.charAt(i) == '\f')) {
+                i++;
+            }
+
+            if (i < line.length() && (line.charAt(i) == '=' || line.charAt(i) == ':')) {
+                i++;
+
+                while (i < line.length() && (line.charAt(i) == ' ' || line.charAt(i) == '\t' || line.charAt(i) == '\f')) {
+                    i++;
+                }
+            }
+
+            String rawValue = line.substring(i);
+
+            return new Entry(line.substring(0, keyEnd), line.substring(0, i), StringUtils.trim(rawValue), rawValue.length(),
+                    collation);
+        }
+
+        int size() {
+            return key.length() + head.length() + value.length();
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            writeString(out, key);
+            writeString(out, head);
+            writeString(out, value);
+            out.writeInt(rawValueLength);
+        }
+
+        static Entry read(DataInputStream in, KeyCollation collation) throws IOException {
+            return new Entry(readString(in), readString(in), readString(in), in.readInt(), collation);
+        }
+
+        private static void writeString(DataOutputStream out, String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Position in a run, either a spilled file or the run still in memory.
+     */
+    private static final class Cursor implements Closeable {
+        final int index;
+
+        @Nullable
+        private final DataInputStream in;
+
+        @Nullable
+        private final Iterator<Entry> memory;
+
+        @Nullable
+        private final KeyCollation collation;
+
+        Entry current;
+
+        Cursor(int index, DataInputStream in, KeyCollation collation) {
+            this.index = index;
+            this.in = in;
+            this.memory = null;
+            this.collation = collation;
+        }
+
+        Cursor(int index, Iterator<Entry> memory) {
+            this.index = index;
+            this.in = null;
+            this.memory = memory;
+            this.collation = null;
+        }
+
+        boolean advance() throws IOException {
+            if (memory != null) {
+                current = memory.hasNext() ? memory.next() : null;
+            } else {
+                try {
+                    current = Entry.read(in, collation);
+                } catch (EOFException e) {
+                    current = null;
+                }
+            }
+
+            return current != null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * Lines of a UTF-8 file decoded chunk by chunk from a {@link FileChannel}, without their {@code \n} or
+     * {@code \r\n} line break, remembering the whitespace the file ends with.
+     */
+    private static final class LineReader implements Closeable {
+        private final FileChannel channel;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ByteBuffer bytes = ByteBuffer.allocate(CHUNK_SIZE);
+        private final CharBuffer chars = CharBuffer.allocate(CHUNK_SIZE);
+        private final StringBuilder line = new StringBuilder();
+        private final StringBuilder trailing = new StringBuilder();
+        // Line break of the last line read, empty at the end of the file.
+        private String lineBreak = "";
+        private boolean eof;
+
+        LineReader(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            chars.flip();
+        }
+
+        @Nullable
+        String next() throws IOException {
+            line.setLength(0);
+
+            while (true) {
+                if (!chars.hasRemaining() && !fill()) {
+                    lineBreak = "";
+
+                    return line.length() == 0 ? null : line.toString();
+                }
+
+                char c = chars.get();
+                track(c);
+
+                if (c == '\n') {
+                    boolean crlf = line.length() > 0 && line.charAt(line.length() - 1) == '\r';
+                    lineBreak = crlf ? "\r\n" : "\n";
+
+                    return crlf ? line.substring(0, line.length() - 1) : line.toString();
+                }
+
+                line.append(c);
+            }
+        }
+
+        String lineBreak() {
+            return lineBreak;
+        }
+
+        String trailingWhitespace() {
+            return trailing.toString();
+        }
+
+        /**
+         * Called after a comment line, the blanks ending a comment and the {@code \r} of its line break belong to the
+         * comment, only the {@code \n} is trailing whitespace.
+         */
+        void commentEnded() {
+            trailing.setLength(0);
+
+            if (!lineBreak.isEmpty()) {
+                trailing.append('\n');
+            }
+        }
+
+        private void track(char c) {
+            if (Character.isWhitespace(c)) {
+                trailing.append(c);
+            } else {
+                trailing.setLength(0);
+            }
+        }
+
+        private boolean fill() throws IOException {
+            if (eof) {
+                return false;
+            }
+
+            chars.clear();
+
+            while (chars.position() == 0) {
+                int read = channel.read(bytes);
+                bytes.flip();
+
+                CoderResult result = decoder.decode(bytes, chars, read < 0);
+                bytes.compact();
+
+                if (read < 0) {
+                    decoder.flush(chars);
+                    eof = true;
+                    break;
+                }
+
+                if (result.isError()) {
+                    result.throwException();
+                }
+            }
+
+            chars.flip();
+
+            return chars.hasRemaining();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package me.khairulsyamil.openrewrite.properties;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import me.khairulsyamil.openrewrite.FileGlob;
+import me.khairulsyamil.openrewrite.KeyCollation;
+import me.khairulsyamil.openrewrite.table.BundleKeyDifferences;
+import org.apache.commons.lang3.StringUtils;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Option;
+import org.openrewrite.ScanningRecipe;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.Validated;
+import org.openrewrite.internal.lang.NonNull;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.properties.PropertiesIsoVisitor;
+import org.openrewrite.properties.tree.Properties;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sorts the properties files of a resource bundle family, {@code messages.properties} and its
+ * {@code messages_xx.properties} siblings, against one canonical key order per family.
+ * <p>
+ * The scan phase groups the files by directory and bundle base name and collects their keys. The canonical order
+ * is sorted and indexed once per family, each file is then put in order by looking its keys up in it, with the same
+ * trimming and duplicate removal as {@link PropertiesSorter}. Keys missing from, or extra to, the base file are
+ * reported in {@link BundleKeyDifferences}. Keys that collate equal, such as {@code label.abc} and
+ * {@code Label.ABC}, share a position and keep their order in the file, so each file gets the order
+ * {@link PropertiesSorter} would give it and the two recipes never undo each other.
+ */
+public class PropertiesBundleSorter extends ScanningRecipe<PropertiesBundleSorter.Accumulator> {
+    // Base name, then an optional locale suffix starting with an ISO 639 language code.
+    private static final Pattern BUNDLE_FILE = Pattern.compile("(.+?)(?:_([a-z]{2})(_[A-Za-z0-9_]+)?)?\\.properties");
+
+    private static final Set<String> LANGUAGES = new HashSet<>(Arrays.asList(Locale.getISOLanguages()));
+
+    @Option(displayName = "File pattern",
+            description = "A glob expression representing a file path to search for (relative to the project root). Blank/null matches all.",
+            required = false,
+            example = "**/messages*.properties")
+    @Nullable
+    String filePattern;
+
+    @Option(displayName = "Collation",
+            description = "Key ordering: `ignore-case`, `natural` (ignores case and compares numbers by value, so `label.9` sorts before `label.10`), `locale` or `locale:<language tag>` (a `java.text.Collator`). Blank/null is `ignore-case`.",
+            required = false,
+            example = "natural")
+    @Nullable
+    String collation;
+
+    transient BundleKeyDifferences keyDifferences = new BundleKeyDifferences(this);
+
+    @JsonIgnore
+    @Nullable
+    private transient FileGlob fileGlob;
+
+    @JsonIgnore
+    @Nullable
+    private transient KeyCollation keyCollation;
+
+    public PropertiesBundleSorter() {
+        this(null, null);
+    }
+
+    @JsonCreator
+    public PropertiesBundleSorter(@Nullable @JsonProperty("filePattern") String filePattern,
+                                  @Nullable @JsonProperty("collation") String collation) {
+        this.filePattern = filePattern;
+        this.collation = collation;
+    }
+
+    @Override
+    public @NonNull String getDisplayName() {
+        return "PropertiesBundleSorter";
+    }
+
+    @Override
+    public @NonNull String getDescription() {
+        return "Reformat the properties files of a resource bundle to remove duplicates and sort by one label order shared by the bundle. " +
+                "All comments will be removed as well. Keys missing from or extra to the base file are reported.";
+    }
+
+    @Override
+    public String toString() {
+        return "PropertiesBundleSorter{}";
+    }
+
+    @Override
+    public @NonNull Validated<Object> validate() {
+        Validated<Object> validated = super.validate();
+
+        try {
+            getKeyCollation();
+        } catch (IllegalArgumentException e) {
+            validated = validated.and(Validated.invalid("collation", collation, e.getMessage(), e));
+        }
+
+        return validated;
+    }
+
+    @Override
+    public Accumulator getInitialValue(@NonNull ExecutionContext ctx) {
+        return new Accumulator();
+    }
+
+    @Override
+    public @NonNull TreeVisitor<?, ExecutionContext> getScanner(@NonNull Accumulator acc) {
+        return new PropertiesIsoVisitor<ExecutionContext>() {
+            @Override
+            public @NonNull Properties.File visitFile(@NonNull Properties.File file, @NonNull ExecutionContext ctx) {
+                if (!getFileGlob().matches(file.getSourcePath())) {
+                    return file;
+                }
+
+                Bundle bundle = Bundle.of(file.getSourcePath());
+
+                if (bundle != null) {
+                    acc.family(bundle.family).add(file, bundle.base);
+                }
+
+                return file;
+            }
+        };
+    }
+
+    @Override
+    public @NonNull TreeVisitor<?, ExecutionContext> getVisitor(@NonNull Accumulator acc) {
+        return getFileGlob().check(new PropertiesBundleSorterVisitor(acc, getKeyCollation(), keyDifferences));
+    }
+
+    private FileGlob getFileGlob() {
+        if (fileGlob == null) {
+            fileGlob = FileGlob.compile(filePattern);
+        }
+
+        return fileGlob;
+    }
+
+    private KeyCollation getKeyCollation() {
+        if (keyCollation == null) {
+            keyCollation = KeyCollation.compile(collation);
+        }
+
+        return keyCollation;
+    }
+
+    public static class Accumulator {
+        private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+        // Files already compared with their base file, each is reported once per run.
+        private final Set<Path> reported = ConcurrentHashMap.newKeySet();
+
+        Family family(String name) {
+            return families.computeIfAbsent(name, k -> new Family());
+        }
+
+        @Nullable
+        Family find(Path sourcePath) {
+            Bundle bundle = Bundle.of(sourcePath);
+
+            return bundle == null ? null : families.get(bundle.family);
+        }
+    }
+
+    /**
+     * The keys of every file of a bundle family, and the canonical order sorted once from them.
+     */
+    static final class Family {
+        private final Set<String> keys = ConcurrentHashMap.newKeySet();
+
+        @Nullable
+        private volatile Path basePath;
+
+        @Nullable
+        private volatile Set<String> baseKeys;
+
+        @Nullable
+        private Map<String, Integer> index;
+
+        void add(Properties.File file, boolean base) {
+            Set<String> fileKeys = keysOf(file);
+            keys.addAll(fileKeys);
+
+            if (base) {
+                basePath = file.getSourcePath();
+                baseKeys = fileKeys;
+            }
+        }
+
+        /**
+         * Rank of each key in the canonical order, sorted on first use once every file was scanned. Keys that collate
+         * equal share a rank.
+         */
+        synchronized Map<String, Integer> index(KeyCollation collation) {
+            if (index == null || index.size() != keys.size()) {
+                List<KeyCollation.Keyed<String>> ordered = collation.keyed(new ArrayList<>(keys), k -> k);
+                ordered.sort(null);
+
+                Map<String, Integer> ranks = new HashMap<>(ordered.size() * 2);
+                int rank = -1;
+
+                for (int i = 0; i < ordered.size(); i++) {
+                    if (i == 0 || ordered.get(i - 1).compareTo(ordered.get(i)) != 0) {
+                        rank++;
+                    }
+
+                    ranks.put(ordered.get(i).getElement(), rank);
+                }
+
+                index = ranks;
+            }
+
+            return index;
+        }
+    }
+
+    private static Set<String> keysOf(Properties.File file) {
+        Set<String> keys = new HashSet<>();
+
+        for (Properties.Content c: file.getContent()) {
+            if (c instanceof Properties.Entry) {
+                keys.add(((Properties.Entry) c).getKey());
+            }
+        }
+
+        return keys;
+    }
+
+    /**
+     * Family name, the directory and base name, of a bundle file.
+     */
+    private static final class Bundle {
+        final String family;
+        final boolean base;
+
+        private Bundle(String family, boolean base) {
+            this.family = family;
+            this.base = base;
+        }
+
+        @Nullable
+        static Bundle of(Path sourcePath) {
+            Path fileName = sourcePath.getFileName();
+
+            if (fileName == null) {
+                return null;
+            }
+
+            Matcher m = BUNDLE_FILE.matcher(fileName.toString());
+
+            if (!m.matches()) {
+                return null;
+            }
+
+            String baseName = m.group(1);
+            boolean base = m.group(2) == null;
+
+            if (!base && !LANGUAGES.contains(m.group(2))) {
+                // Not a locale suffix, the whole name is the base name.
+                baseName = fileName.toString().substring(0, fileName.toString().length() - ".properties".length());
+                base = true;
+            }
+
+            Path dir = sourcePath.getParent();
+
+            return new Bundle((dir == null ? "" : dir.toString().replace('\\', '/') + "/") + baseName, base);
+        }
+    }
+
+    public static class PropertiesBundleSorterVisitor extends PropertiesIsoVisitor<ExecutionContext> {
+        private final Accumulator acc;
+        private final KeyCollation collation;
+        private final BundleKeyDifferences keyDifferences;
+
+        public PropertiesBundleSorterVisitor(Accumulator acc, KeyCollation collation, BundleKeyDifferences keyDifferences) {
+            this.acc = acc;
+            this.collation = collation;
+            this.keyDifferences = keyDifferences;
+        }
+
+        @Override
+        public @NonNull Properties.File visitFile(@NonNull Properties.File file, @NonNull ExecutionContext ctx) {
+            Properties.File p = super.visitFile(file, ctx);
+
+            Family family = acc.find(p.getSourcePath());
+
+            if (family == null) {
+                return p;
+            }
+
+            report(family, p, ctx);
+
+            Map<String, Integer> index = family.index(collation);
+
+            List<Properties.Entry> entries = new ArrayList<>(p.getContent().size());
+            boolean requiresChange = false;
+            int previousRank = -1;
+
+            for (Properties.Content c: p.getContent()) {
+                if (c instanceof Properties.Comment) {
+                    requiresChange = true;
+                    continue;
+                }
+
+                Properties.Entry e = (Properties.Entry) c;
+                Integer rank = index.get(e.getKey());
+
+                if (rank == null) {
+                    // Not scanned, such as a key added by another recipe in this cycle, sort the file on its own.
+                    return (Properties.File) new PropertiesSorter.PropertiesSorterVisitor(collation).visitNonNull(p, ctx);
+                }
+
+                if (!entries.isEmpty() && (previousRank > rank || !StringUtils.equals(e.getPrefix(), "\n"))) {
+                    requiresChange = true;
+                }
+
+                previousRank = rank;
+                entries.add(e);
+            }
+
+            if (!requiresChange) {
+                return p;
+            }
+
+            // Stable, like the sort of PropertiesSorter, the ranks are only looked up.
+            entries.sort(Comparator.comparingInt(e -> index.get(e.getKey())));
+
+            boolean[] startsGroup = new boolean[entries.size()];
+            int groupRank = -1;
+
+            for (int i = 0; i < entries.size(); i++) {
+                int rank = index.get(entries.get(i).getKey());
+                startsGroup[i] = rank != groupRank;
+                groupRank = rank;
+            }
+
+            return p.withContent(PropertiesSorter.normalize(entries, startsGroup));
+        }
+
+        private void report(Family family, Properties.File p, ExecutionContext ctx) {
+            Path basePath = family.basePath;
+            Set<String> baseKeys = family.baseKeys;
+
+            if (basePath == null || baseKeys == null || basePath.equals(p.getSourcePath()) || !acc.reported.add(p.getSourcePath())) {
+                return;
+            }
+
+            Set<String> fileKeys = keysOf(p);
+            Map<String, Integer> index = family.index(collation);
+            List<String> differences = new ArrayList<>();
+
+            for (String key: baseKeys) {
+                if (!fileKeys.contains(key)) {
+                    differences.add(key);
+                }
+            }
+
+            for (String key: fileKeys) {
+                if (!baseKeys.contains(key)) {
+                    differences.add(key);
+                }
+            }
+
+            // Reported in the canonical order.
+            differences.sort(Comparator.<String>comparingInt(k -> index.getOrDefault(k, Integer.MAX_VALUE))
+                    .thenComparing(Comparator.naturalOrder()));
+
+            for (String key: differences) {
+                keyDifferences.insertRow(ctx, new BundleKeyDifferences.Row(p.getSourcePath().toString(),
+                        basePath.toString(),
+                        key,
+                        baseKeys.contains(key) ? "Missing" : "Extra"));
+            }
+        }
+    }
+}
@@ -1,25 +1,30 @@
 package me.khairulsyamil.openrewrite.properties;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import me.khairulsyamil.openrewrite.FileGlob;
+import me.khairulsyamil.openrewrite.IncrementalCache;
+import me.khairulsyamil.openrewrite.KeyCollation;
+import me.khairulsyamil.openrewrite.SortedSourceMemo;
+import me.khairulsyamil.openrewrite.table.SortViolations;
 import org.openrewrite.Option;
-import org.openrewrite.PathUtils;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.Validated;
 import org.openrewrite.internal.lang.Nullable;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import org.apache.commons.lang3.StringUtils;
 import org.openrewrite.ExecutionContext;
-import org.openrewrite.Recipe;
-import org.openrewrite.internal.ListUtils;
+import org.openrewrite.ScanningRecipe;
 import org.openrewrite.internal.lang.NonNull;
 import org.openrewrite.properties.PropertiesIsoVisitor;
 import org.openrewrite.properties.tree.Properties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
-public class PropertiesSorter extends Recipe {
+public class PropertiesSorter extends ScanningRecipe<IncrementalCache.Visits> {
     @Option(displayName = "File pattern",
             description = "A glob expression representing a file path to search for (relative to the project root). Blank/null matches all.",
             required = false,
@@ -27,11 +32,52 @@ public class PropertiesSorter extends Recipe {
     @Nullable
     String filePattern;
 
+    @Option(displayName = "Cache file",
+            description = "Enables incremental mode. A local file recording the content hashes of sources already verified as sorted, those sources are not checked again on later runs. Sources are still parsed and printed to be hashed, so only the sortedness check is saved. Blank/null disables the cache.",
+            required = false,
+            example = "target/rewrite-sorter.cache")
+    @Nullable
+    String cacheFile;
+
+    @Option(displayName = "Collation",
+            description = "Key ordering: `ignore-case`, `natural` (ignores case and compares numbers by value, so `label.9` sorts before `label.10`), `locale` or `locale:<language tag>` (a `java.text.Collator`). Blank/null is `ignore-case`.",
+            required = false,
+            example = "natural")
+    @Nullable
+    String collation;
+
+    @Option(displayName = "Check only",
+            description = "Only report the first pair of entries out of order in each file in a data table, without changing any file.",
+            required = false,
+            example = "true")
+    @Nullable
+    Boolean checkOnly;
+
+    transient SortViolations sortViolations = new SortViolations(this);
+
+    @JsonIgnore
+    @Nullable
+    private transient FileGlob fileGlob;
+
+    @JsonIgnore
+    @Nullable
+    private transient KeyCollation keyCollation;
+
     private static final Logger logger = LoggerFactory.getLogger(PropertiesSorter.class);
 
+    public PropertiesSorter(@Nullable String filePattern) {
+        this(filePattern, null, null, null);
+    }
+
     @JsonCreator
-    public PropertiesSorter(@Nullable @JsonProperty("filePattern") String filePattern) {
+    public PropertiesSorter(@Nullable @JsonProperty("filePattern") String filePattern,
+                            @Nullable @JsonProperty("cacheFile") String cacheFile,
+                            @Nullable @JsonProperty("collation") String collation,
+                            @Nullable @JsonProperty("checkOnly") Boolean checkOnly) {
         this.filePattern = filePattern;
+        this.cacheFile = cacheFile;
+        this.collation = collation;
+        this.checkOnly = checkOnly;
     }
 
     @Override
@@ -50,136 +96,222 @@ public class PropertiesSorter extends Recipe {
     }
 
     @Override
-    public @NonNull PropertiesIsoVisitor<ExecutionContext> getVisitor() {
-        return new PropertiesSorterVisitor(filePattern);
+    public @NonNull Validated<Object> validate() {
+        Validated<Object> validated = super.validate();
+
+        try {
+            getKeyCollation();
+        } catch (IllegalArgumentException e) {
+            validated = validated.and(Validated.invalid("collation", collation, e.getMessage(), e));
+        }
+
+        return validated;
+    }
+
+    @Override
+    public IncrementalCache.Visits getInitialValue(@NonNull ExecutionContext ctx) {
+        return new IncrementalCache.Visits();
+    }
+
+    @Override
+    public @NonNull TreeVisitor<?, ExecutionContext> getScanner(@NonNull IncrementalCache.Visits visits) {
+        // Only counts the sources, so the last one visited writes the cache file.
+        return IncrementalCache.countVisits(Boolean.TRUE.equals(checkOnly) ? null : cacheFile, visits, getVisitor(visits));
+    }
+
+    @Override
+    public @NonNull TreeVisitor<?, ExecutionContext> getVisitor(@NonNull IncrementalCache.Visits visits) {
+        if (Boolean.TRUE.equals(checkOnly)) {
+            // Never memoized nor cached, an unchanged source is not proof of a sorted one in this mode.
+            return getFileGlob().check(new PropertiesSorterVisitor(getKeyCollation(), sortViolations));
+        }
+
+        // Non-matching files are rejected before the sorter visits them, sources found sorted are skipped in later cycles.
+        String key = "PropertiesSorter{filePattern=" + filePattern + ", collation=" + collation + "}";
+
+        return IncrementalCache.flushAfterLastVisit(cacheFile, visits, SortedSourceMemo.memoize(key,
+                getFileGlob().check(IncrementalCache.wrap(cacheFile, key, new PropertiesSorterVisitor(getKeyCollation())))));
+    }
+
+    private FileGlob getFileGlob() {
+        if (fileGlob == null) {
+            fileGlob = FileGlob.compile(filePattern);
+        }
+
+        return fileGlob;
+    }
+
+    private KeyCollation getKeyCollation() {
+        if (keyCollation == null) {
+            keyCollation = KeyCollation.compile(collation);
+        }
+
+        return keyCollation;
+    }
+
+    /**
+     * Single pass over entries already in their final order: removes duplicates, sets prefixes and trims values,
+     * rebuilding only the entries that change.
+     *
+     * @param startsGroup for each entry, whether its key sorts after the key before it. Duplicates can only be found
+     *                    among the entries of the same group.
+     */
+    static List<Properties.Content> normalize(List<Properties.Entry> sorted, boolean[] startsGroup) {
+        List<Properties.Content> result = new ArrayList<>(sorted.size());
+        List<Properties.Entry> group = new ArrayList<>();
+
+        for (int i = 0; i < sorted.size(); i++) {
+            Properties.Entry e = sorted.get(i);
+
+            String key = e.getKey();
+            String value = StringUtils.trim(e.getValue().getText());
+
+            if (startsGroup[i]) {
+                group.clear();
+            }
+
+            Properties.Entry seen = null;
+
+            for (Properties.Entry g: group) {
+                if (StringUtils.equals(g.getKey(), key)) {
+                    seen = g;
+                    break;
+                }
+            }
+
+            if (seen == null) {
+                // Key does not already exists.
+
+            } else if (StringUtils.equals(seen.getValue().getText(), value)) {
+                // Key already exists and the value is the same.
+                logger.warn("Duplicate key found and removed\nKey: {}\nValue: {}",
+                        key,
+                        value);
+
+                continue;
+
+            } else {
+                // Key already exists and the value is not the same.
+                logger.warn("Duplicate key found\nKey: {}\nValue 1: {}\nValue 2: {}",
+                        key,
+                        seen.getValue().getText(),
+                        value);
+            }
+
+            String prefix = result.isEmpty() ? "" : "\n";
+
+            if (!StringUtils.equals(e.getPrefix(), prefix)) {
+                e = e.withPrefix(prefix);
+            }
+
+            if (!StringUtils.equals(e.getValue().getText(), value)) {
+                e = e.withValue(e.getValue().withText(value));
+            }
+
+            if (seen == null) {
+                group.add(e);
+            }
+
+            result.add(e);
+        }
+
+        return result;
     }
 
     public static class PropertiesSorterVisitor extends PropertiesIsoVisitor<org.openrewrite.ExecutionContext> {
-        private final String filePattern;
+        private final KeyCollation collation;
+        private final SortViolations sortViolations;
 
-        public PropertiesSorterVisitor(String filePattern) {
-            this.filePattern = filePattern;
+        public PropertiesSorterVisitor() {
+            this(KeyCollation.IGNORE_CASE);
+        }
+
+        public PropertiesSorterVisitor(KeyCollation collation) {
+            this(collation, null);
+        }
+
+        /**
+         * @param sortViolations when not null, check only mode: the first violation of each file is reported here
+         *                       and no tree is changed.
+         */
+        public PropertiesSorterVisitor(KeyCollation collation, @Nullable SortViolations sortViolations) {
+            this.collation = collation;
+            this.sortViolations = sortViolations;
         }
 
         @Override
         public @NonNull Properties.File visitFile(@NonNull Properties.File file, @NonNull ExecutionContext ctx) {
             Properties.File p = super.visitFile(file, ctx);
 
-            if (StringUtils.isNotBlank(filePattern)
-                    && !PathUtils.matchesGlob(p.getSourcePath().getFileName(), filePattern)) {
-                return p;
-            }
-
             boolean requiresChange = false;
-            Properties.Content previous = null;
+            KeyCollation.Key previousKey = null;
+            Properties.Entry previous = null;
 
             for (Properties.Content c: p.getContent()) {
                 if (c instanceof Properties.Comment) {
                     requiresChange = true;
+                    report(p, previous == null ? "" : previous.getKey(), ((Properties.Comment) c).getMessage().trim(), "Comment", ctx);
                     break;
                 }
 
-                if (previous != null) {
-                    Properties.Entry aProp = (Properties.Entry) previous;
-                    Properties.Entry bProp = (Properties.Entry) c;
+                // Each key is folded once, then compared with its neighbours.
+                KeyCollation.Key key = collation.key(((Properties.Entry) c).getKey());
 
-                    String aLabel = aProp.getKey();
-                    String bLabel = bProp.getKey();
+                if (previousKey != null) {
+                    Properties.Entry bProp = (Properties.Entry) c;
 
-                    if (StringUtils.compareIgnoreCase(aLabel, bLabel) > 0) {
+                    if (previousKey.compareTo(key) > 0) {
                         requiresChange = true;
+                        report(p, previous.getKey(), bProp.getKey(), "Out of order", ctx);
                         break;
                     }
 
                     if (!StringUtils.equals(bProp.getPrefix(), "\n")) {
                         requiresChange = true;
+                        report(p, previous.getKey(), bProp.getKey(), "Formatting", ctx);
                         break;
                     }
                 }
 
-                previous = c;
+                previousKey = key;
+                previous = (Properties.Entry) c;
             }
 
-            if (!requiresChange) {
+            if (!requiresChange || sortViolations != null) {
                 return p;
             }
 
-            List<Properties.Content> sorted = p.getContent().stream()
-                    .filter(c -> c instanceof Properties.Entry)
-                    .sorted((a, b) -> {
-                        Properties.Entry aProp = (Properties.Entry) a;
-                        Properties.Entry bProp = (Properties.Entry) b;
-
-                        String aLabel = aProp.getKey();
-                        String bLabel = bProp.getKey();
-
-                        return StringUtils.compareIgnoreCase(aLabel, bLabel);
-                    })
-                    .toList();
+            List<Properties.Entry> entries = new ArrayList<>(p.getContent().size());
 
-            // Set prefix.
-            sorted = ListUtils.map(sorted, (i, c) -> {
-                Properties.Entry e = (Properties.Entry) c;
-
-                if (i == 0) {
-                    e = e.withPrefix("");
-                }
-                else if (!StringUtils.equals(c.getPrefix(), "\n")) {
-                    e = e.withPrefix("\n");
+            for (Properties.Content c: p.getContent()) {
+                if (c instanceof Properties.Entry) {
+                    entries.add((Properties.Entry) c);
                 }
+            }
 
-                return e;
-            });
-
-            // Trim values.
-            sorted = ListUtils.map(sorted, (i, c) -> {
-                Properties.Entry e = (Properties.Entry) c;
-
-                String value = StringUtils.trim(e.getValue().getText());
-
-                return e.withValue(e.getValue().withText(value));
-            });
-
-            // Remove duplicates.
-            Map<String, String> seen = new HashMap<>(sorted.size());
-            sorted = sorted.stream()
-                    .filter(c -> {
-                        Properties.Entry e = (Properties.Entry) c;
-
-                        String key = e.getKey();
-                        String value = e.getValue().getText();
-
-                        String seenValue = seen.get(key);
-                        
-                        if (seenValue == null) {
-                            // Key does not already exists.
-                            seen.put(key, value);
-
-                            return true;
-
-                        } else if (StringUtils.equals(seenValue, value)) {
-                            // Key already exists and the value is the same.
-                            logger.warn("Duplicate key found and removed\nKey: {}\nValue: {}",
-                                    key,
-                                    value);
+            // Stable, the key of each entry is computed once.
+            List<KeyCollation.Keyed<Properties.Entry>> sorted = collation.keyed(entries, Properties.Entry::getKey);
+            sorted.sort(null);
 
-                            return false;
+            boolean[] startsGroup = new boolean[sorted.size()];
+            List<Properties.Entry> entriesSorted = new ArrayList<>(sorted.size());
 
-                        } else {
-                            // Key already exists and the value is not the same.
-                            logger.warn("Duplicate key found\nKey: {}\nValue 1: {}\nValue 2: {}",
-                                    key,
-                                    seenValue,
-                                    value);
+            for (int i = 0; i < sorted.size(); i++) {
+                startsGroup[i] = i == 0 || sorted.get(i - 1).getKey().compareTo(sorted.get(i).getKey()) != 0;
+                entriesSorted.add(sorted.get(i).getElement());
+            }
 
-                            return true;
-                        }
-                    })
-                    .toList();
+            List<Properties.Content> result = normalize(entriesSorted, startsGroup);
 
-            p = p.withContent(sorted);
+            p = p.withContent(result);
 
             return p;
         }
+
+        private void report(Properties.File p, String first, String second, String reason, ExecutionContext ctx) {
+            if (sortViolations != null) {
+                sortViolations.insertRow(ctx, new SortViolations.Row(p.getSourcePath().toString(), first, second, reason));
+            }
+        }
     }
 }
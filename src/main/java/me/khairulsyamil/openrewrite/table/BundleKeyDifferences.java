@@ -0,0 +1,87 @@
+package me.khairulsyamil.openrewrite.table;
+
+import org.openrewrite.Column;
+import org.openrewrite.DataTable;
+import org.openrewrite.Recipe;
+
+import java.util.Objects;
+
+public class BundleKeyDifferences extends DataTable<BundleKeyDifferences.Row> {
+    public BundleKeyDifferences(Recipe recipe) {
+        super(recipe,
+                "Bundle key differences",
+                "Keys of a localized properties file that are missing from, or extra to, the base file of its bundle.");
+    }
+
+    public static final class Row {
+        @Column(displayName = "Source path",
+                description = "The path of the localized properties file.")
+        private final String sourcePath;
+
+        @Column(displayName = "Base path",
+                description = "The path of the base properties file of the bundle.")
+        private final String basePath;
+
+        @Column(displayName = "Key",
+                description = "The key that differs.")
+        private final String key;
+
+        @Column(displayName = "Difference",
+                description = "`Missing` when only the base file has the key, `Extra` when only the localized file has it.")
+        private final String difference;
+
+        public Row(String sourcePath, String basePath, String key, String difference) {
+            this.sourcePath = sourcePath;
+            this.basePath = basePath;
+            this.key = key;
+            this.difference = difference;
+        }
+
+        public String getSourcePath() {
+            return sourcePath;
+        }
+
+        public String getBasePath() {
+            return basePath;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getDifference() {
+            return difference;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Row)) {
+                return false;
+            }
+
+            Row row = (Row) o;
+
+            return Objects.equals(sourcePath, row.sourcePath)
+                    && Objects.equals(basePath, row.basePath)
+                    && Objects.equals(key, row.key)
+                    && Objects.equals(difference, row.difference);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sourcePath, basePath, key, difference);
+        }
+
+        @Override
+        public String toString() {
+            return "BundleKeyDifferences.Row{sourcePath=" + sourcePath
+                    + ", basePath=" + basePath
+                    + ", key=" + key
+                    + ", difference=" + difference + "}";
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package me.khairulsyamil.openrewrite.table;
+
+import org.openrewrite.Column;
+import org.openrewrite.DataTable;
+import org.openrewrite.Recipe;
+
+import java.util.Objects;
+
+public class SortViolations extends DataTable<SortViolations.Row> {
+    public SortViolations(Recipe recipe) {
+        super(recipe,
+                "Sort violations",
+                "Files a sorter would change, with the first pair of elements found out of order. Only filled in check only mode.");
+    }
+
+    public static final class Row {
+        @Column(displayName = "Source path",
+                description = "The path of the source file that is not sorted.")
+        private final String sourcePath;
+
+        @Column(displayName = "First",
+                description = "The element found before the second one.")
+        private final String first;
+
+        @Column(displayName = "Second",
+                description = "The element found after the first one.")
+        private final String second;
+
+        @Column(displayName = "Reason",
+                description = "`Out of order`, `Duplicate`, `Comment`, `Formatting` or `Unsupported`.")
+        private final String reason;
+
+        public Row(String sourcePath, String first, String second, String reason) {
+            this.sourcePath = sourcePath;
+            this.first = first;
+            this.second = second;
+            this.reason = reason;
+        }
+
+        public String getSourcePath() {
+            return sourcePath;
+        }
+
+        public String getFirst() {
+            return first;
+        }
+
+        public String getSecond() {
+            return second;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Row)) {
+                return false;
+            }
+
+            Row row = (Row) o;
+
+            return Objects.equals(sourcePath, row.sourcePath)
+                    && Objects.equals(first, row.first)
+                    && Objects.equals(second, row.second)
+                    && Objects.equals(reason, row.reason);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sourcePath, first, second, reason);
+        }
+
+        @Override
+        public String toString() {
+            return "SortViolations.Row{sourcePath=" + sourcePath
+                    + ", first=" + first
+                    + ", second=" + second
+                    + ", reason=" + reason + "}";
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package me.khairulsyamil.openrewrite.table;
+
+import org.openrewrite.Column;
+import org.openrewrite.DataTable;
+import org.openrewrite.Recipe;
+
+import java.util.Objects;
+
+public class UnsupportedClassStatements extends DataTable<UnsupportedClassStatements.Row> {
+    public UnsupportedClassStatements(Recipe recipe) {
+        super(recipe,
+                "Unsupported class statements",
+                "Classes left untouched because their body contains a statement kind the sorter does not support.");
+    }
+
+    public static final class Row {
+        @Column(displayName = "Source path",
+                description = "The path of the source file containing the class.")
+        private final String sourcePath;
+
+        @Column(displayName = "Class name",
+                description = "The simple name of the class that was skipped.")
+        private final String className;
+
+        @Column(displayName = "Statement kind",
+                description = "The LST type of the first unsupported statement.")
+        private final String statementKind;
+
+        public Row(String sourcePath, String className, String statementKind) {
+            this.sourcePath = sourcePath;
+            this.className = className;
+            this.statementKind = statementKind;
+        }
+
+        public String getSourcePath() {
+            return sourcePath;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getStatementKind() {
+            return statementKind;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Row)) {
+                return false;
+            }
+
+            Row row = (Row) o;
+
+            return Objects.equals(sourcePath, row.sourcePath)
+                    && Objects.equals(className, row.className)
+                    && Objects.equals(statementKind, row.statementKind);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sourcePath, className, statementKind);
+        }
+
+        @Override
+        public String toString() {
+            return "UnsupportedClassStatements.Row{sourcePath=" + sourcePath
+                    + ", className=" + className
+                    + ", statementKind=" + statementKind + "}";
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package me.khairulsyamil.openrewrite;
+
+import me.khairulsyamil.openrewrite.json.JsonSorter;
+import me.khairulsyamil.openrewrite.properties.PropertiesSorter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Tree;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchSorterTest {
+    @Test
+    public void sortsTree(@TempDir Path root) throws IOException {
+        createTree(root);
+
+        assertSorted(root, new BatchSorter(null, null, 4).sort(root));
+    }
+
+    @Test
+    public void sortsTreePipelined(@TempDir Path root) throws IOException {
+        createTree(root);
+
+        // A depth of one keeps the stages waiting on each other.
+        assertSorted(root, new BatchSorter(null, null, 4).sortPipelined(root, 1));
+    }
+
+    @Test
+    public void sortErrorFailsOnlyItsFile(@TempDir Path root) throws IOException {
+        createTree(root);
+
+        BatchSorter sorter = new BatchSorter(null, null, 1, failingSort(new StackOverflowError()));
+        BatchSorter.Result result = assertTimeoutPreemptively(Duration.ofSeconds(60), () -> sorter.sortPipelined(root, 1));
+
+        assertEquals(List.of(Paths.get("src/main/resources/messages.json"), Paths.get("src/main/resources/messages.properties")),
+                result.getSorted());
+        assertEquals(List.of(Paths.get("src/TestClass.java"), Paths.get("src/main/resources/broken.json")),
+                List.copyOf(result.getFailures().keySet()));
+    }
+
+    @Test
+    public void sortErrorDoesNotBlockPipeline(@TempDir Path root) throws IOException {
+        createTree(root);
+
+        // Escapes the step and ends the only sorter, the files still queued must be drained.
+        BatchSorter sorter = new BatchSorter(null, null, 1, failingSort(new AssertionError("Sort failed")));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> assertThrows(IOException.class, () -> sorter.sortPipelined(root, 1)));
+    }
+
+    /**
+     * Throws the error when sorting the Java file, the other files are sorted as usual.
+     */
+    private static Function<Path, TreeVisitor<?, ExecutionContext>> failingSort(Error error) {
+        return relative -> {
+            if (relative.toString().endsWith(".java")) {
+                return new TreeVisitor<>() {
+                    @Override
+                    public Tree visit(@Nullable Tree tree, ExecutionContext ctx) {
+                        throw error;
+                    }
+                };
+            }
+
+            return relative.toString().endsWith(".json")
+                    ? new JsonSorter.JsonSorterVisitor()
+                    : new PropertiesSorter.PropertiesSorterVisitor();
+        };
+    }
+
+    private static void createTree(Path root) throws IOException {
+        Files.createDirectories(root.resolve("src/main/resources"));
+        Files.createDirectories(root.resolve(".git"));
+
+        Files.writeString(root.resolve("src/TestClass.java"), """
+                class TestClass {
+                    void methodB() {
+                    }
+
+                    void methodA() {
+                    }
+                }
+                """);
+        Files.writeString(root.resolve("src/main/resources/messages.properties"), "label.def=DEF\nlabel.abc=ABC\n");
+        Files.writeString(root.resolve("src/main/resources/errors.properties"), "label.abc=ABC\nlabel.def=DEF\n");
+        Files.writeString(root.resolve("src/main/resources/messages.json"), "{\n    \"b\": 1,\n    \"a\": 2\n}\n");
+        Files.writeString(root.resolve("src/main/resources/broken.json"), "{\n    \"b\": \n");
+        Files.writeString(root.resolve(".git/config.json"), "{\"b\": 1, \"a\": 2}");
+    }
+
+    private static void assertSorted(Path root, BatchSorter.Result result) throws IOException {
+        assertEquals(5, result.getFileCount());
+        assertEquals(List.of(
+                Paths.get("src/TestClass.java"),
+                Paths.get("src/main/resources/messages.json"),
+                Paths.get("src/main/resources/messages.properties")
+        ), result.getSorted());
+        assertEquals(List.of(Paths.get("src/main/resources/broken.json")), List.copyOf(result.getFailures().keySet()));
+
+        assertTrue(Files.readString(root.resolve("src/TestClass.java")).indexOf("methodA")
+                < Files.readString(root.resolve("src/TestClass.java")).indexOf("methodB"));
+        assertEquals("label.abc=ABC\nlabel.def=DEF\n", Files.readString(root.resolve("src/main/resources/messages.properties")));
+        assertEquals("{\n    \"a\": 2,\n    \"b\": 1\n}\n", Files.readString(root.resolve("src/main/resources/messages.json")));
+        assertEquals("{\"b\": 1, \"a\": 2}", Files.readString(root.resolve(".git/config.json")));
+    }
+}
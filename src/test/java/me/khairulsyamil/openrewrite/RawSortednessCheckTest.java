@@ -0,0 +1,85 @@
+package me.khairulsyamil.openrewrite;
+
+import me.khairulsyamil.openrewrite.json.JsonSorter;
+import me.khairulsyamil.openrewrite.properties.PropertiesSorter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.json.JsonParser;
+import org.openrewrite.properties.PropertiesParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RawSortednessCheckTest {
+    private final RawSortednessCheck check = RawSortednessCheck.of(null, null);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void properties() throws IOException {
+        assertProperties(true, "label.abc=ABC\nlabel.def=DEF\n");
+        assertProperties(true, "label.abc\\:x = ABC\nLABEL.DEF: DEF\nlabel.ghi=GHI \\\n    continued\n\n");
+        assertProperties(true, "long\\\n    key=A\nlongkey=B\n");
+        assertProperties(false, "label.def=DEF\nlabel.abc=ABC\n");
+        assertProperties(false, "# Labels\nlabel.abc=ABC\n");
+        assertProperties(false, "label.abc=ABC\n\nlabel.def=DEF\n");
+        assertProperties(false, "label.abc=ABC \nlabel.def=DEF\n");
+        assertProperties(false, "label.abc=ABC\n  label.def=DEF\n");
+        assertProperties(false, "label.abc=ABC\r\nlabel.def=DEF\r\n");
+    }
+
+    @Test
+    public void json() throws IOException {
+        assertJson(true, "{\n    \"label.abc\": \"ABC\",\n    \"label.def\": {\"a\": [1, {\"x\": 1, \"y\": 2}], \"b\": \"}\"}\n}\n");
+        assertJson(false, "{\n    \"label.def\": \"DEF\",\n    \"label.abc\": \"ABC\"\n}\n");
+        assertJson(false, "{\n    \"label.abc\": {\"b\": 1, \"a\": 2}\n}\n");
+        assertJson(false, "[{\"b\": 1, \"a\": 2}]");
+        assertJson(false, "{\n    \"label.abc\": \"ABC\",\n    \"label.abc\": \"ABC\"\n}\n");
+        // Same key values written differently, the sorter removes the duplicate.
+        assertJson(false, "{\"a\": 1, 'a': 1}");
+        assertJson(false, "{\"a\": 1, \"\\u0061\": 1}");
+    }
+
+    @Test
+    public void requiringParse() throws IOException {
+        Path sorted = Files.writeString(dir.resolve("sorted.properties"), "a=A\nb=B\n");
+        Path unsorted = Files.writeString(dir.resolve("unsorted.properties"), "b=B\na=A\n");
+        Path other = Files.writeString(dir.resolve("other.json"), "{\"b\": 1, \"a\": 2}");
+
+        assertEquals(List.of(unsorted), RawSortednessCheck.of("*.properties", null).requiringParse(List.of(sorted, unsorted, other)));
+    }
+
+    private void assertProperties(boolean expected, String properties) throws IOException {
+        Path file = Files.writeString(dir.resolve("messages.properties"), properties);
+
+        assertEquals(expected, check.isSorted(file), properties);
+
+        if (expected) {
+            // Files found sorted must be left unchanged by the sorter.
+            InMemoryExecutionContext ctx = new InMemoryExecutionContext();
+            SourceFile source = PropertiesParser.builder().build().parse(ctx, properties).findFirst().orElseThrow();
+
+            assertEquals(properties, ((SourceFile) new PropertiesSorter.PropertiesSorterVisitor().visitNonNull(source, ctx)).printAll());
+        }
+    }
+
+    private void assertJson(boolean expected, String json) throws IOException {
+        Path file = Files.writeString(dir.resolve("messages.json"), json);
+
+        assertEquals(expected, check.isSorted(file), json);
+
+        if (expected) {
+            InMemoryExecutionContext ctx = new InMemoryExecutionContext();
+            SourceFile source = JsonParser.builder().build().parse(ctx, json).findFirst().orElseThrow();
+
+            assertEquals(json, ((SourceFile) new JsonSorter.JsonSorterVisitor().visitNonNull(source, ctx)).printAll());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package me.khairulsyamil.openrewrite;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.Tree;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.internal.lang.NonNull;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.properties.PropertiesParser;
+
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SortedSourceMemoTest {
+    @Test
+    public void unchangedSourceVisitedOnce() {
+        AtomicInteger visits = new AtomicInteger();
+        TreeVisitor<?, ExecutionContext> memoized = SortedSourceMemo.memoize("SortedSourceMemoTest", new TreeVisitor<Tree, ExecutionContext>() {
+            @Override
+            public Tree visit(@Nullable Tree tree, @NonNull ExecutionContext ctx) {
+                visits.incrementAndGet();
+
+                return tree;
+            }
+        });
+
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        SourceFile file = PropertiesParser.builder().build().parse(ctx, "label.abc=ABC\n").findFirst().orElseThrow();
+
+        memoized.visit(file, ctx);
+        memoized.visit(file, ctx);
+        assertEquals(1, visits.get());
+
+        // An edited source is a new instance, and is visited again.
+        SourceFile edited = file.withSourcePath(Paths.get("messages.properties"));
+        memoized.visit(edited, ctx);
+        memoized.visit(file, new InMemoryExecutionContext());
+        assertEquals(3, visits.get());
+    }
+}
@@ -1,11 +1,31 @@
 package me.khairulsyamil.openrewrite.java;
 
+import me.khairulsyamil.openrewrite.table.SortViolations;
+import me.khairulsyamil.openrewrite.table.UnsupportedClassStatements;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Recipe;
+import org.openrewrite.Tree;
+import org.openrewrite.Validated;
+import org.openrewrite.internal.ListUtils;
+import org.openrewrite.java.JavaIsoVisitor;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.Space;
+import org.openrewrite.marker.Markers;
 import org.openrewrite.test.RecipeSpec;
 import org.openrewrite.test.RewriteTest;
+import org.openrewrite.test.TypeValidation;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.openrewrite.java.Assertions.java;
+import static org.openrewrite.test.RewriteTest.toRecipe;
 
 class JavaMethodSorterTest implements RewriteTest {
     @Override
@@ -233,4 +253,663 @@ class JavaMethodSorterTest implements RewriteTest {
                 }
                 """));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void modifierOrderChanges() {
+        rewriteRun(java("""
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int b;
+                    public int a;
+                    private static final int C = 1;
+                    private final int d = 1;
+                
+                    private void methodA() {
+                    }
+                
+                    public static void methodB() {
+                    }
+                
+                    public void methodC() {
+                    }
+                
+                    public TestClass() {
+                    }
+                }
+                """, """
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private static final int C = 1;
+                    private final int d = 1;
+                    private int b;
+                    public int a;
+                
+                    public TestClass() {
+                    }
+                
+                    public static void methodB() {
+                    }
+                
+                    public void methodC() {
+                    }
+                
+                    private void methodA() {
+                    }
+                }
+                """));
+    }
+
+    @Test
+    public void noSortedMemberChanges() {
+        rewriteRun(java("""
+                package me.khairulsyamil.test;
+                
+                import java.util.ArrayList;
+                import java.util.List;
+                
+                class TestClass {
+                    private static final List<Integer> A = new ArrayList<>();
+                    static {
+                        A.add(1);
+                    }
+                    private int b, c;
+                
+                    public TestClass() {
+                    }
+                
+                    public int getB() {
+                        return b;
+                    }
+                
+                    public void setB(int b) {
+                        this.b = b;
+                    }
+                
+                    private void methodA() {
+                    }
+                
+                    static class InnerA {
+                    }
+                
+                    static class InnerB {
+                    }
+                }
+                """));
+    }
+
+    @Test
+    public void initializerBlockChanges() {
+        rewriteRun(java("""
+                package me.khairulsyamil.test;
+                
+                import java.util.ArrayList;
+                import java.util.List;
+                
+                class TestClass {
+                    private static final List<Integer> B = new ArrayList<>();
+                    static {
+                        B.add(2);
+                    }
+                    static {
+                        B.add(3);
+                    }
+                    private static final List<Integer> A = new ArrayList<>();
+                    static {
+                        A.add(1);
+                    }
+                }
+                """, """
+                package me.khairulsyamil.test;
+                
+                import java.util.ArrayList;
+                import java.util.List;
+                
+                class TestClass {
+                    private static final List<Integer> A = new ArrayList<>();
+                    static {
+                        A.add(1);
+                    }
+                    private static final List<Integer> B = new ArrayList<>();
+                    static {
+                        B.add(2);
+                    }
+                    static {
+                        B.add(3);
+                    }
+                }
+                """));
+    }
+
+    @Test
+    public void configuredFieldOrderChanges() {
+        // The default field order puts static fields first, access first puts the private field first.
+        rewriteRun(spec -> spec.recipe(new JavaMethodSorter(
+                        null,
+                        List.of("access"),
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null)),
+                java("""
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    public static int c;
+                    private int d;
+                }
+                """, """
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int d;
+                    public static int c;
+                }
+                """));
+    }
+
+    @Test
+    public void invalidOrderNamesOption() {
+        Validated<Object> validated = new JavaMethodSorter(null, List.of("visibility"), null, null, null, null, null, null).validate();
+
+        assertEquals(List.of("fieldOrder"), validated.failures().stream().map(Validated.Invalid::getProperty).toList());
+    }
+
+    @Test
+    public void configuredOrderChanges() {
+        rewriteRun(spec -> spec.recipe(new JavaMethodSorter(
+                        List.of("annotation", "access"),
+                        List.of("access"),
+                        List.of("Deprecated"),
+                        null,
+                        null,
+                        null,
+                        null,
+                        null)),
+                java("""
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private static int b;
+                    public int a;
+                
+                    public void methodA() {
+                    }
+                
+                    @Deprecated
+                    private void methodB() {
+                    }
+                }
+                """, """
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private static int b;
+                    public int a;
+                
+                    @Deprecated
+                    private void methodB() {
+                    }
+                
+                    public void methodA() {
+                    }
+                }
+                """));
+    }
+
+    @Test
+    public void unsupportedStatementNotCached(@TempDir Path dir) {
+        Path cacheFile = dir.resolve("sorter.cache");
+
+        rewriteRun(spec -> spec.recipes(addEmptyStatement(),
+                                new JavaMethodSorter(null, null, null, null, null, true, cacheFile.toString(), null)),
+                java("""
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int a;
+                }
+                """, """
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int a;;
+                }
+                """));
+
+        // Skipped, so the next run reports the class again.
+        assertFalse(Files.exists(cacheFile));
+    }
+
+    private static Recipe addEmptyStatement() {
+        return toRecipe(() -> new JavaIsoVisitor<>() {
+            @Override
+            public J.Block visitBlock(J.Block block, ExecutionContext ctx) {
+                // The Java parser never produces one, so add an empty statement to the class body.
+                if (getCursor().getParentTreeCursor().getValue() instanceof J.ClassDeclaration
+                        && block.getStatements().stream().noneMatch(s -> s instanceof J.Empty)) {
+                    return block.withStatements(ListUtils.concat(block.getStatements(),
+                            new J.Empty(Tree.randomId(), Space.EMPTY, Markers.EMPTY)));
+                }
+
+                return super.visitBlock(block, ctx);
+            }
+        });
+    }
+
+    @Test
+    public void unsupportedStatementSkipped() {
+        rewriteRun(spec -> spec.recipes(addEmptyStatement(), new JavaMethodSorter(null, null, null, null, null, true, null, null))
+                        .dataTable(UnsupportedClassStatements.Row.class, rows -> {
+                            assertEquals(1, rows.size());
+                            assertEquals("TestClass", rows.get(0).getClassName());
+                            assertEquals("Empty", rows.get(0).getStatementKind());
+                        }),
+                java("""
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int b;
+                    private int a;
+                }
+                """, """
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int b;
+                    private int a;;
+                }
+                """));
+    }
+
+    @Test
+    public void variableDeclarationChanges() {
+        rewriteRun(java("""
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int d, c;
+                    private int b, a;
+                }
+                """, """
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int a, b;
+                    private int c, d;
+                }
+                """));
+    }
+
+    @Test
+    public void noEnumValueChanges() {
+        // Reordering the constants would change their ordinals.
+        rewriteRun(java("""
+                package me.khairulsyamil.test;
+                
+                enum TestEnum {
+                    C,
+                    A,
+                    B
+                }
+                """));
+    }
+
+    @Test
+    public void constructorWithoutTypeAttributionChanges() {
+        rewriteRun(spec -> spec.recipes(
+                                toRecipe(() -> new JavaIsoVisitor<>() {
+                                    @Override
+                                    public J.MethodDeclaration visitMethodDeclaration(J.MethodDeclaration method, ExecutionContext ctx) {
+                                        // Simulate a source parsed without a classpath.
+                                        return super.visitMethodDeclaration(method, ctx).withMethodType(null);
+                                    }
+                                }),
+                                new JavaMethodSorter())
+                        .typeValidationOptions(TypeValidation.none()),
+                java("""
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int a;
+                
+                    public void methodA() {
+                    }
+                
+                    public TestClass() {
+                    }
+                }
+                """, """
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int a;
+                
+                    public TestClass() {
+                    }
+                
+                    public void methodA() {
+                    }
+                }
+                """));
+    }
+
+    @Test
+    public void accessorChanges() {
+        rewriteRun(java("""
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private boolean active;
+                    private String name;
+                
+                    public void setName(String name) {
+                        this.name = name;
+                    }
+                
+                    public void activeState() {
+                    }
+                
+                    public void setActive(boolean active) {
+                        this.active = active;
+                    }
+                
+                    public TestClass name(String name) {
+                        this.name = name;
+                        return this;
+                    }
+                
+                    private void apply(String name) {
+                    }
+                
+                    public boolean isActive() {
+                        return active;
+                    }
+                
+                    public void apply() {
+                    }
+                
+                    public String getName() {
+                        return name;
+                    }
+                }
+                """, """
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private boolean active;
+                    private String name;
+                
+                    public boolean isActive() {
+                        return active;
+                    }
+                
+                    public void setActive(boolean active) {
+                        this.active = active;
+                    }
+                
+                    public void activeState() {
+                    }
+                
+                    public void apply() {
+                    }
+                
+                    public TestClass name(String name) {
+                        this.name = name;
+                        return this;
+                    }
+                
+                    public String getName() {
+                        return name;
+                    }
+                
+                    public void setName(String name) {
+                        this.name = name;
+                    }
+                
+                    private void apply(String name) {
+                    }
+                }
+                """));
+    }
+
+    @Test
+    public void accessorGroupingChanges() {
+        // Grouped, the private overload follows its public sibling.
+        rewriteRun(spec -> spec.recipe(new JavaMethodSorter(null, null, null, null, true, null, null, null)),
+                java("""
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private boolean active;
+                    private String name;
+                
+                    public void setName(String name) {
+                        this.name = name;
+                    }
+                
+                    public void activeState() {
+                    }
+                
+                    public void setActive(boolean active) {
+                        this.active = active;
+                    }
+                
+                    public TestClass name(String name) {
+                        this.name = name;
+                        return this;
+                    }
+                
+                    private void apply(String name) {
+                    }
+                
+                    public boolean isActive() {
+                        return active;
+                    }
+                
+                    public void apply() {
+                    }
+                
+                    public String getName() {
+                        return name;
+                    }
+                }
+                """, """
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private boolean active;
+                    private String name;
+                
+                    public boolean isActive() {
+                        return active;
+                    }
+                
+                    public void setActive(boolean active) {
+                        this.active = active;
+                    }
+                
+                    public void activeState() {
+                    }
+                
+                    private void apply(String name) {
+                    }
+                
+                    public void apply() {
+                    }
+                
+                    public TestClass name(String name) {
+                        this.name = name;
+                        return this;
+                    }
+                
+                    public String getName() {
+                        return name;
+                    }
+                
+                    public void setName(String name) {
+                        this.name = name;
+                    }
+                }
+                """));
+    }
+
+    @Test
+    public void accessorsKeepOriginalPlacement() {
+        // Getters and setters sort as their field followed by g and s, after other names starting with the field.
+        rewriteRun(java("""
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int b;
+                
+                    public int getB() {
+                        return b;
+                    }
+                
+                    public void baz() {
+                    }
+                
+                    public void bar() {
+                    }
+                }
+                """, """
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int b;
+                
+                    public void bar() {
+                    }
+                
+                    public void baz() {
+                    }
+                
+                    public int getB() {
+                        return b;
+                    }
+                }
+                """));
+    }
+
+    @Test
+    public void accessorGroupingSkipsConstructors() {
+        // The constructor folds to the field name, but the getter must not take the constructor rank.
+        rewriteRun(spec -> spec.recipe(new JavaMethodSorter(null, null, null, null, true, null, null, null)),
+                java("""
+                package me.khairulsyamil.test;
+                
+                class Registry {
+                    private static Registry registry;
+                
+                    public static Registry getRegistry() {
+                        return registry;
+                    }
+                
+                    public static void clear() {
+                    }
+                
+                    private Registry() {
+                    }
+                }
+                """, """
+                package me.khairulsyamil.test;
+                
+                class Registry {
+                    private static Registry registry;
+                
+                    private Registry() {
+                    }
+                
+                    public static void clear() {
+                    }
+                
+                    public static Registry getRegistry() {
+                        return registry;
+                    }
+                }
+                """));
+    }
+
+    @Test
+    public void forwardReferenceChanges() {
+        rewriteRun(java("""
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private static final int C = 3;
+                    private static final int B = C + 1;
+                    private static final int D = 4;
+                    private static final int A = B + TestClass.D;
+                    private final int f = 5, e = f;
+                }
+                """, """
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private static final int C = 3;
+                    private static final int B = C + 1;
+                    private static final int A = B + TestClass.D;
+                    private static final int D = 4;
+                    private final int f = 5, e = f;
+                }
+                """));
+    }
+
+    @Test
+    public void checkOnlyReportsFirstViolation() {
+        rewriteRun(spec -> spec.recipe(new JavaMethodSorter(null, null, null, null, null, null, null, true))
+                        .dataTable(SortViolations.Row.class, rows -> {
+                            assertEquals(1, rows.size());
+                            assertEquals("TestClass.methodB()", rows.get(0).getFirst());
+                            assertEquals("TestClass.methodA()", rows.get(0).getSecond());
+                            assertEquals("Out of order", rows.get(0).getReason());
+                        }),
+                java("""
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int a;
+                
+                    public void methodB() {
+                    }
+                
+                    public void methodA() {
+                    }
+                
+                    public void methodD() {
+                    }
+                
+                    public void methodC() {
+                    }
+                }
+                """));
+    }
+
+    @Test
+    public void checkOnlyReportsUnsupportedClass() {
+        rewriteRun(spec -> spec.recipes(addEmptyStatement(), new JavaMethodSorter(null, null, null, null, null, null, null, true))
+                        .dataTable(SortViolations.Row.class, rows -> {
+                            assertEquals(1, rows.size());
+                            assertEquals("TestClass", rows.get(0).getFirst());
+                            assertEquals("Empty", rows.get(0).getSecond());
+                            assertEquals("Unsupported", rows.get(0).getReason());
+                        }),
+                java("""
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int a;
+                }
+                """, """
+                package me.khairulsyamil.test;
+                
+                class TestClass {
+                    private int a;;
+                }
+                """));
+    }
+}
@@ -1,11 +1,13 @@
 package me.khairulsyamil.openrewrite.json;
 
+import me.khairulsyamil.openrewrite.table.SortViolations;
 import org.junit.jupiter.api.Test;
 import org.openrewrite.test.RecipeSpec;
 import org.openrewrite.test.RewriteTest;
 
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.openrewrite.json.Assertions.json;
 
 class JsonSorterTest implements RewriteTest {
@@ -93,4 +95,286 @@ class JsonSorterTest implements RewriteTest {
                                 """)
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void filePatternChange() {
+        rewriteRun(
+                spec -> spec.recipe(new JsonSorter("**/app.messages.json")),
+                json(
+                        """
+                                {
+                                    "label.def": "DEF",
+                                    "label.abc": "ABC"
+                                }
+                                """, """
+                                {
+                                    "label.abc": "ABC",
+                                    "label.def": "DEF"
+                                }
+                                """,
+                        spec -> spec.path("src/main/resources/app.messages.json")),
+                json(
+                        """
+                                {
+                                    "label.def": "DEF",
+                                    "label.abc": "ABC"
+                                }
+                                """,
+                        spec -> spec.path("src/main/resources/package.json"))
+        );
+    }
+
+    @Test
+    public void convergesInOneCycle() {
+        rewriteRun(
+                spec -> spec.cycles(2).expectedCyclesThatMakeChanges(1),
+                json("""
+                        {
+                            "label.def": "DEF",
+                            "label.nest": {
+                                "nested.2": "NESTED 2",
+                                "nested.1": "NESTED 1",
+                                "nested.2": "NESTED 2"
+                            },
+                            "label.abc": "ABC",
+                            "label.def": "DEF"
+                        }
+                        """, """
+                        {
+                            "label.abc": "ABC",
+                            "label.def": "DEF",
+                            "label.nest": {
+                                "nested.1": "NESTED 1",
+                                "nested.2": "NESTED 2"
+                            }
+                        }
+                        """
+                )
+        );
+    }
+
+    @Test
+    public void sortedDuplicateRemoval() {
+        rewriteRun(
+                json(
+                        """
+                                {
+                                    "label.abc": "ABC",
+                                    "label.abc": "ABC",
+                                    "label.def": "DEF"
+                                }
+                                """, """
+                                {
+                                    "label.abc": "ABC",
+                                    "label.def": "DEF"
+                                }
+                                """)
+        );
+    }
+
+    @Test
+    public void nestedDuplicateRemoval() {
+        rewriteRun(
+                json("""
+                        {
+                            "label.nest": {
+                                "nested.2": "NESTED 2",
+                                "nested.1": ["A", "B"]
+                            },
+                            "label.abc": "ABC",
+                            "label.nest": {
+                                "nested.1": ["A", "B"],
+                                "nested.2": "NESTED 2"
+                            },
+                            "label.list": ["A", "B"],
+                            "label.list": ["A", "B"],
+                            "label.other": ["A"],
+                            "label.other": ["B"]
+                        }
+                        """, """
+                        {
+                            "label.abc": "ABC",
+                            "label.list": ["A", "B"],
+                            "label.nest": {
+                                "nested.1": ["A", "B"],
+                                "nested.2": "NESTED 2"
+                            },
+                            "label.other": ["A"],
+                            "label.other": ["B"]
+                        }
+                        """
+                )
+        );
+    }
+
+    @Test
+    public void arrayKeyPathChange() {
+        rewriteRun(
+                spec -> spec.recipe(new JsonSorter(null, null, "meta.name", null, null, null, null)),
+                json("""
+                        {
+                            "items": [
+                                {"id": 3, "meta": {"name": "b"}},
+                                {"id": 1, "meta": {"name": "a"}},
+                                {"id": 4},
+                                {"id": 2, "meta": {"name": "B"}}
+                            ]
+                        }
+                        """, """
+                        {
+                            "items": [
+                                {"id": 1, "meta": {"name": "a"}},
+                                {"id": 2, "meta": {"name": "B"}},
+                                {"id": 3, "meta": {"name": "b"}},
+                                {"id": 4}
+                            ]
+                        }
+                        """
+                )
+        );
+    }
+
+    @Test
+    public void arrayKeyPathDedupe() {
+        rewriteRun(
+                spec -> spec.recipe(new JsonSorter(null, null, "id", true, null, null, null)),
+                json("""
+                        {
+                            "items": [
+                                {"id": 10, "label": "TEN"},
+                                {"id": 2, "label": "TWO"},
+                                {"id": 10, "label": "OTHER TEN"}
+                            ],
+                            "names": ["b", "a"]
+                        }
+                        """, """
+                        {
+                            "items": [
+                                {"id": 2, "label": "TWO"},
+                                {"id": 10, "label": "TEN"}
+                            ],
+                            "names": ["b", "a"]
+                        }
+                        """
+                )
+        );
+    }
+
+    @Test
+    public void arrayKeyPathNaturalCollation() {
+        rewriteRun(
+                spec -> spec.recipe(new JsonSorter(null, null, "name", null, null, "natural", null)),
+                json("""
+                        {
+                            "items": [
+                                {"name": "item10"},
+                                {"name": "Item9"},
+                                {"name": "item1"}
+                            ]
+                        }
+                        """, """
+                        {
+                            "items": [
+                                {"name": "item1"},
+                                {"name": "Item9"},
+                                {"name": "item10"}
+                            ]
+                        }
+                        """
+                )
+        );
+    }
+
+    @Test
+    public void sortPathsChange() {
+        rewriteRun(
+                spec -> spec.recipe(new JsonSorter(null, null, null, null, List.of("$.messages", "$.locales.*"), null, null)),
+                json("""
+                        {
+                            "payload": {
+                                "z": "Z",
+                                "a": "A"
+                            },
+                            "messages": {
+                                "label.def": "DEF",
+                                "label.abc": "ABC"
+                            },
+                            "locales": {
+                                "ms": {
+                                    "label.def": "DEF",
+                                    "label.abc": "ABC"
+                                },
+                                "en": {
+                                    "label.def": "DEF",
+                                    "label.abc": "ABC"
+                                }
+                            }
+                        }
+                        """, """
+                        {
+                            "payload": {
+                                "z": "Z",
+                                "a": "A"
+                            },
+                            "messages": {
+                                "label.abc": "ABC",
+                                "label.def": "DEF"
+                            },
+                            "locales": {
+                                "ms": {
+                                    "label.abc": "ABC",
+                                    "label.def": "DEF"
+                                },
+                                "en": {
+                                    "label.abc": "ABC",
+                                    "label.def": "DEF"
+                                }
+                            }
+                        }
+                        """
+                )
+        );
+    }
+
+    @Test
+    public void localeCollationChange() {
+        rewriteRun(
+                spec -> spec.recipe(new JsonSorter(null, null, null, null, null, "locale:de", null)),
+                json("""
+                        {
+                            "zebra": "Z",
+                            "\u00e4pfel": "\u00c4",
+                            "apfel": "A"
+                        }
+                        """, """
+                        {
+                            "apfel": "A",
+                            "\u00e4pfel": "\u00c4",
+                            "zebra": "Z"
+                        }
+                        """
+                )
+        );
+    }
+
+    @Test
+    public void checkOnlyReportsFirstViolation() {
+        rewriteRun(
+                spec -> spec.recipe(new JsonSorter(null, null, null, null, null, null, true))
+                        .dataTable(SortViolations.Row.class, rows -> assertEquals(List.of(
+                                new SortViolations.Row("messages.json", "label.ghi", "label.def", "Out of order")
+                        ), rows)),
+                json("""
+                        {
+                            "label.abc": {
+                                "label.ghi": "GHI",
+                                "label.def": "DEF"
+                            },
+                            "label.aaa": "AAA"
+                        }
+                        """,
+                        spec -> spec.path("messages.json")
+                )
+        );
+    }
+}
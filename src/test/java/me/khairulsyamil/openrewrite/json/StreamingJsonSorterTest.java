@@ -0,0 +1,99 @@
+package me.khairulsyamil.openrewrite.json;
+
+import me.khairulsyamil.openrewrite.KeyCollation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.json.JsonParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingJsonSorterTest {
+    private static final String JSON = """
+            {
+                // Labels
+                "label.def": "DEF",
+                "label.abc" : "ABC",
+                "label.nest": {
+                    "nested.2": "NESTED 2",
+                    "nested.1": ["A", {"z": 1, "a": 2}]
+                },
+                "label.abc": "ABC",
+                "label.sorted": {"a": 1, "b": 2},
+                "label.ghi": "GHI 1",
+                "label.nest": {
+                    "nested.1": ["A", {"a": 2, "z": 1}],
+                    "nested.2": "NESTED 2"
+                },
+                "label.ghi": "GHI 2",
+                "Label.Case": true,
+                "label.empty": { }
+            }
+            """;
+
+    @Test
+    public void matchesJsonSorter() throws IOException {
+        assertEquals(sortWithJsonSorter(JSON), sort(new StreamingJsonSorter(), JSON));
+    }
+
+    @Test
+    public void spillsToDisk(@TempDir Path dir) throws IOException {
+        assertEquals(sortWithJsonSorter(JSON), sort(new StreamingJsonSorter(16, dir, null), JSON));
+
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void matchesJsonSorterCollation() throws IOException {
+        String json = """
+                {
+                    "label.10": "TEN",
+                    "Label.9": "NINE",
+                    "label.1": "ONE"
+                }
+                """;
+
+        assertEquals(sortWithJsonSorter(json, KeyCollation.compile("natural")),
+                sort(new StreamingJsonSorter(StreamingJsonSorter.DEFAULT_BUFFER_SIZE, null, "natural"), json));
+    }
+
+    @Test
+    public void sortsFileInPlace(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("app.messages.json");
+        Files.writeString(file, JSON);
+
+        new StreamingJsonSorter().sort(file, file);
+
+        assertEquals(sortWithJsonSorter(JSON), Files.readString(file));
+    }
+
+    private static String sort(StreamingJsonSorter sorter, String json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sorter.sort(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), out);
+
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String sortWithJsonSorter(String json) {
+        return sortWithJsonSorter(json, KeyCollation.IGNORE_CASE);
+    }
+
+    private static String sortWithJsonSorter(String json, KeyCollation collation) {
+        InMemoryExecutionContext ctx = new InMemoryExecutionContext();
+        SourceFile document = JsonParser.builder().build().parse(ctx, json).findFirst().orElseThrow();
+        JsonSorter.JsonSorterVisitor visitor = new JsonSorter.JsonSorterVisitor(null, false, Collections.emptyList(), collation);
+
+        return ((SourceFile) visitor.visitNonNull(document, ctx)).printAll();
+    }
+}
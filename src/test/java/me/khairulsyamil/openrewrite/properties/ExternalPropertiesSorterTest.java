@@ -0,0 +1,112 @@
+package me.khairulsyamil.openrewrite.properties;
+
+import me.khairulsyamil.openrewrite.KeyCollation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.properties.PropertiesParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExternalPropertiesSorterTest {
+    @TempDir
+    Path dir;
+
+    private static final String PROPERTIES = """
+            # Labels
+            label.def=DEF
+            label.abc = ABC\s\s
+            Label.ABC=ABC
+
+            label.ghi:GHI 1
+            label.abc=ABC
+            ! Conflicting
+            label.ghi:GHI 2
+            label.abc=ABC 2
+            """;
+
+    @Test
+    public void matchesPropertiesSorter() throws IOException {
+        assertEquals(sortWithPropertiesSorter(PROPERTIES), sort(new ExternalPropertiesSorter(), PROPERTIES));
+    }
+
+    @Test
+    public void mergesSpilledRuns() throws IOException {
+        Path runs = Files.createDirectory(dir.resolve("runs"));
+
+        assertEquals(sortWithPropertiesSorter(PROPERTIES), sort(new ExternalPropertiesSorter(16, runs, null), PROPERTIES));
+
+        try (var files = Files.list(runs)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void sortedFileUnchanged() throws IOException {
+        String sorted = """
+                label.abc=ABC
+                label.def=DEF
+                """;
+
+        assertEquals(sorted, sort(new ExternalPropertiesSorter(16, null, null), sorted));
+    }
+
+    @Test
+    public void matchesPropertiesSorterCollation() throws IOException {
+        String properties = """
+                label.10=TEN
+                Label.9=NINE
+                label.1=ONE
+                """;
+
+        assertEquals(sortWithPropertiesSorter(properties, KeyCollation.compile("natural")),
+                sort(new ExternalPropertiesSorter(16, null, "natural"), properties));
+    }
+
+    @Test
+    public void matchesPropertiesSorterTrailingWhitespace() throws IOException {
+        for (String properties: List.of("label.def=DEF\nlabel.abc=ABC \t ", "label.def=DEF\nlabel.abc=ABC  \n\n",
+                "label.def=DEF\nlabel.abc=ABC\n# End  \n")) {
+            assertEquals(sortWithPropertiesSorter(properties), sort(new ExternalPropertiesSorter(), properties));
+        }
+    }
+
+    @Test
+    public void matchesPropertiesSorterCrlf() throws IOException {
+        String sorted = "label.abc=ABC\r\nlabel.def=DEF\r\n";
+
+        assertEquals(sortWithPropertiesSorter(sorted), sort(new ExternalPropertiesSorter(), sorted));
+
+        String properties = "# Labels  \r\nlabel.def=DEF \r\n\r\nlabel.abc = ABC\r\nlabel.ghi=GHI\r\n# End  \r\n";
+
+        assertEquals(sortWithPropertiesSorter(properties), sort(new ExternalPropertiesSorter(), properties));
+        assertEquals(sortWithPropertiesSorter(properties), sort(new ExternalPropertiesSorter(16, null, null), properties));
+    }
+
+    private String sort(ExternalPropertiesSorter sorter, String properties) throws IOException {
+        Path input = dir.resolve("messages.properties");
+        Path output = dir.resolve("sorted.properties");
+        Files.writeString(input, properties);
+
+        sorter.sort(input, output);
+
+        return Files.readString(output);
+    }
+
+    private static String sortWithPropertiesSorter(String properties) {
+        return sortWithPropertiesSorter(properties, KeyCollation.IGNORE_CASE);
+    }
+
+    private static String sortWithPropertiesSorter(String properties, KeyCollation collation) {
+        InMemoryExecutionContext ctx = new InMemoryExecutionContext();
+        SourceFile file = PropertiesParser.builder().build().parse(ctx, properties).findFirst().orElseThrow();
+
+        return ((SourceFile) new PropertiesSorter.PropertiesSorterVisitor(collation).visitNonNull(file, ctx)).printAll();
+    }
+}
@@ -0,0 +1,109 @@
+package me.khairulsyamil.openrewrite.properties;
+
+import me.khairulsyamil.openrewrite.table.BundleKeyDifferences;
+import org.junit.jupiter.api.Test;
+import org.openrewrite.test.RecipeSpec;
+import org.openrewrite.test.RewriteTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.openrewrite.properties.Assertions.properties;
+
+class PropertiesBundleSorterTest implements RewriteTest {
+    @Override
+    public void defaults(RecipeSpec spec) {
+        spec.recipe(new PropertiesBundleSorter());
+    }
+
+    @Test
+    public void noChanges() {
+        rewriteRun(
+                properties(
+                        """
+                                label.abc=ABC
+                                label.def=DEF
+                                """,
+                        spec -> spec.path("messages.properties")),
+                properties(
+                        """
+                                label.abc=ABC
+                                label.def=DEF
+                                """,
+                        spec -> spec.path("messages_ms.properties"))
+        );
+    }
+
+    @Test
+    public void familyChange() {
+        rewriteRun(
+                spec -> spec.dataTable(BundleKeyDifferences.Row.class, rows -> assertEquals(List.of(
+                        new BundleKeyDifferences.Row("messages_ms_MY.properties", "messages.properties", "label.def", "Missing"),
+                        new BundleKeyDifferences.Row("messages_ms_MY.properties", "messages.properties", "label.jkl", "Extra")
+                ), rows)),
+                properties(
+                        """
+                                # Labels
+                                label.ghi=GHI
+                                label.def=DEF
+                                label.abc=ABC
+                                """,
+                        """
+                                label.abc=ABC
+                                label.def=DEF
+                                label.ghi=GHI
+                                """,
+                        spec -> spec.path("messages.properties")),
+                properties(
+                        """
+                                label.jkl=JKL
+                                label.ghi=GHI
+                                label.abc = ABC\s
+                                label.abc = ABC
+                                """,
+                        """
+                                label.abc = ABC
+                                label.ghi=GHI
+                                label.jkl=JKL
+                                """,
+                        spec -> spec.path("messages_ms_MY.properties")),
+                properties(
+                        """
+                                label.b=B
+                                label.a=A
+                                """,
+                        """
+                                label.a=A
+                                label.b=B
+                                """,
+                        spec -> spec.path("app_messages.properties"))
+        );
+    }
+
+    @Test
+    public void caseVariantsKeepFileOrder() {
+        // Keys that collate equal keep their order in each file, like PropertiesSorter.
+        rewriteRun(
+                spec -> spec.recipes(new PropertiesBundleSorter(), new PropertiesSorter(null)),
+                properties(
+                        """
+                                label.def=DEF
+                                label.abc=ABC
+                                Label.ABC=ABC 2
+                                """,
+                        """
+                                label.abc=ABC
+                                Label.ABC=ABC 2
+                                label.def=DEF
+                                """,
+                        spec -> spec.path("messages.properties")),
+                properties(
+                        """
+                                Label.ABC=ABC 2
+                                label.abc=ABC
+                                label.def=DEF
+                                """,
+                        spec -> spec.path("messages_ms.properties"))
+        );
+    }
+}
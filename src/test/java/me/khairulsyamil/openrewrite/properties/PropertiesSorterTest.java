@@ -1,9 +1,18 @@
 package me.khairulsyamil.openrewrite.properties;
 
+import me.khairulsyamil.openrewrite.table.SortViolations;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.openrewrite.test.RecipeSpec;
 import org.openrewrite.test.RewriteTest;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.openrewrite.properties.Assertions.properties;
 
 class PropertiesSorterTest implements RewriteTest {
@@ -112,4 +121,154 @@ class PropertiesSorterTest implements RewriteTest {
                                 """)
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void filePatternChange() {
+        rewriteRun(
+                spec -> spec.recipe(new PropertiesSorter("**/{messages,errors}.properties")),
+                properties(
+                        """
+                                label.def=DEF
+                                label.abc=ABC
+                                """,
+                        """
+                                label.abc=ABC
+                                label.def=DEF
+                                """,
+                        spec -> spec.path("src/main/resources/messages.properties")),
+                properties(
+                        """
+                                label.def=DEF
+                                label.abc=ABC
+                                """,
+                        spec -> spec.path("src/main/resources/application.properties"))
+        );
+    }
+
+    @Test
+    public void multipleCyclesNoChanges() {
+        rewriteRun(
+                spec -> spec.cycles(3).expectedCyclesThatMakeChanges(1),
+                properties(
+                        """
+                                label.def=DEF
+                                label.abc=ABC
+                                """,
+                        """
+                                label.abc=ABC
+                                label.def=DEF
+                                """),
+                properties(
+                        """
+                                label.abc=ABC
+                                label.def=DEF
+                                """)
+        );
+    }
+
+    @Test
+    public void caseVariantDuplicateRemoval() {
+        rewriteRun(
+                properties(
+                        """
+                                label.def=DEF
+                                label.abc=ABC
+                                Label.ABC=ABC
+                                label.abc=ABC
+                                """,
+                        """
+                                label.abc=ABC
+                                Label.ABC=ABC
+                                label.def=DEF
+                                """)
+        );
+    }
+
+    @Test
+    public void naturalCollationChange() {
+        rewriteRun(
+                spec -> spec.recipe(new PropertiesSorter(null, null, "natural", null)),
+                properties(
+                        """
+                                label.10=TEN
+                                Label.9=NINE
+                                label.1=ONE
+                                """,
+                        """
+                                label.1=ONE
+                                Label.9=NINE
+                                label.10=TEN
+                                """)
+        );
+    }
+
+    @Test
+    public void incrementalCacheRecordsSortedFiles(@TempDir Path dir) throws IOException {
+        Path cacheFile = dir.resolve("sorter.cache");
+
+        rewriteRun(
+                spec -> spec.recipe(new PropertiesSorter(null, cacheFile.toString(), null, null)),
+                properties(
+                        """
+                                label.abc=ABC
+                                label.def=DEF
+                                """),
+                properties(
+                        """
+                                label.def=DEF
+                                label.abc=ABC
+                                """,
+                        """
+                                label.abc=ABC
+                                label.def=DEF
+                                """)
+        );
+
+        // Entries are content addressed, both files end up with the same sorted content and share one entry.
+        assertEquals(1, Files.readAllLines(cacheFile).size());
+    }
+
+    @Test
+    public void incrementalCacheDropsStaleEntries(@TempDir Path dir) throws IOException {
+        Path cacheFile = dir.resolve("sorter.cache");
+        Files.writeString(cacheFile, "stale\n");
+
+        rewriteRun(
+                spec -> spec.recipe(new PropertiesSorter(null, cacheFile.toString(), null, null)),
+                properties(
+                        """
+                                label.abc=ABC
+                                label.def=DEF
+                                """)
+        );
+
+        // Only the hashes confirmed by the run are written back.
+        List<String> lines = Files.readAllLines(cacheFile);
+        assertEquals(1, lines.size());
+        assertFalse(lines.contains("stale"));
+    }
+
+    @Test
+    public void checkOnlyReportsFirstViolation() {
+        rewriteRun(
+                spec -> spec.recipe(new PropertiesSorter(null, null, null, true))
+                        .dataTable(SortViolations.Row.class, rows -> assertEquals(List.of(
+                                new SortViolations.Row("messages.properties", "label.def", "label.abc", "Out of order")
+                        ), rows)),
+                properties(
+                        """
+                                label.def=DEF
+                                label.abc=ABC
+                                label.ghi=GHI
+                                label.aaa=AAA
+                                """,
+                        spec -> spec.path("messages.properties")),
+                properties(
+                        """
+                                label.abc=ABC
+                                label.def=DEF
+                                """,
+                        spec -> spec.path("errors.properties"))
+        );
+    }
+}